@@ -10,6 +10,7 @@ let currentQuestions = [];
 let currentQuestionIndex = 0;
 let contestStartTime = null;
 let questionStartTime = null;
+let rankingSource = null;
 
 // 工具函数：显示Toast提示
 function showToast(message, type = 'success') {
@@ -53,6 +54,11 @@ async function apiRequest(url, options = {}) {
 
 // 页面切换
 function showPage(pageName) {
+    // 离开比赛详情页时关闭排行榜推送
+    if (pageName !== 'contestDetail') {
+        closeRankingStream();
+    }
+    
     // 隐藏所有页面
     document.querySelectorAll('.page').forEach(page => {
         page.style.display = 'none';
@@ -258,7 +264,8 @@ async function viewContestDetail(contestId) {
         currentContest = contest;
         
         // 获取排行榜
-        const leaderboard = await apiRequest(`/api/contest/${contestId}/ranking`);
+        const ranking = await apiRequest(`/api/contest/${contestId}/ranking?top=50`);
+        const leaderboard = ranking ? ranking.items : [];
         
         const contestDetail = document.getElementById('contestDetail');
         contestDetail.innerHTML = `
@@ -293,21 +300,7 @@ async function viewContestDetail(contestId) {
                 
                 <div class="leaderboard">
                     <h3>排行榜</h3>
-                    ${leaderboard && leaderboard.length > 0 ? leaderboard.map((item, index) => `
-                        <div class="leaderboard-item">
-                            <div class="leaderboard-rank rank-${item.rank}">
-                                ${item.rank === 1 ? '🥇' : item.rank === 2 ? '🥈' : item.rank === 3 ? '🥉' : item.rank}
-                            </div>
-                            <div class="leaderboard-user">
-                                <strong>${item.username}</strong>
-                                <div style="font-size: 14px; color: #666;">
-                                    正确：${item.correctCount}/${item.totalQuestions} 题 | 
-                                    用时：${formatDuration(item.totalDuration)}
-                                </div>
-                            </div>
-                            <div class="leaderboard-score">${item.totalScore} 分</div>
-                        </div>
-                    `).join('') : '<div class="empty-state-desc">暂无排名数据</div>'}
+                    <div id="leaderboardList">${renderLeaderboard(leaderboard)}</div>
                 </div>
                 
                 <div style="text-align: center; margin-top: 30px;">
@@ -317,11 +310,75 @@ async function viewContestDetail(contestId) {
         `;
         
         showPage('contestDetail');
+        openRankingStream(contestId, leaderboard);
     } catch (error) {
         console.error('加载比赛详情失败:', error);
     }
 }
 
+// 渲染排行榜
+function renderLeaderboard(items) {
+    if (!items || items.length === 0) {
+        return '<div class="empty-state-desc">暂无排名数据</div>';
+    }
+    return items.map(item => `
+        <div class="leaderboard-item">
+            <div class="leaderboard-rank rank-${item.rank}">
+                ${item.rank === 1 ? '🥇' : item.rank === 2 ? '🥈' : item.rank === 3 ? '🥉' : item.rank}
+            </div>
+            <div class="leaderboard-user">
+                <strong>${item.username}</strong>
+                <div style="font-size: 14px; color: #666;">
+                    用时：${formatDuration(item.duration)}
+                </div>
+            </div>
+            <div class="leaderboard-score">${item.score} 分</div>
+        </div>
+    `).join('');
+}
+
+// 订阅排行榜实时推送，按增量帧更新本地排行
+function openRankingStream(contestId, initialItems) {
+    closeRankingStream();
+    
+    const ranking = new Map((initialItems || []).map(item => [item.userId, item]));
+    const redraw = () => {
+        const list = document.getElementById('leaderboardList');
+        if (list) {
+            list.innerHTML = renderLeaderboard([...ranking.values()].sort((a, b) => a.rank - b.rank));
+        }
+    };
+    // 最近应用的帧序号，增量帧必须紧接其后，否则重新订阅取全量快照
+    let lastSeq = null;
+    const apply = (event) => {
+        const frame = JSON.parse(event.data);
+        if (frame.snapshot) {
+            ranking.clear();
+        } else if (lastSeq === null || frame.seq !== lastSeq + 1) {
+            openRankingStream(contestId, [...ranking.values()]);
+            return;
+        }
+        lastSeq = frame.seq;
+        (frame.removed || []).forEach(userId => ranking.delete(userId));
+        (frame.changes || []).forEach(item => ranking.set(item.userId, item));
+        redraw();
+    };
+    
+    rankingSource = new EventSource(`${API_BASE_URL}/api/contest/${contestId}/ranking/stream`);
+    rankingSource.addEventListener('snapshot', apply);
+    rankingSource.addEventListener('delta', apply);
+    // 比赛已结束，服务端不会再推送，关闭连接避免EventSource自动重连
+    rankingSource.addEventListener('end', closeRankingStream);
+}
+
+// 关闭排行榜推送
+function closeRankingStream() {
+    if (rankingSource) {
+        rankingSource.close();
+        rankingSource = null;
+    }
+}
+
 // 报名参赛
 async function joinContest(contestId) {
     try {
@@ -0,0 +1,74 @@
+package com.trialsisland.config;
+
+import jakarta.validation.constraints.AssertTrue;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 比赛奖励档位配置（contest.prize）
+ * 档位按顺序依次覆盖名次：top为固定名次数，percent为参赛人数的百分比，
+ * share为该档占奖池的比例，在该档的名次间平分；各档share之和不能超过1，否则启动时绑定失败
+ */
+@Data
+@Validated
+@Component
+@ConfigurationProperties(prefix = "contest.prize")
+public class ContestPrizeProperties {
+
+    /**
+     * 奖励档位，默认前三名分别获得奖池的50%、30%、20%
+     */
+    private List<Tier> tiers = new ArrayList<>(List.of(
+            new Tier(1, null, 0.5),
+            new Tier(1, null, 0.3),
+            new Tier(1, null, 0.2)));
+
+    /**
+     * 各档比例非负且合计不超过奖池，避免结算发出的奖励超过奖池
+     */
+    @AssertTrue(message = "contest.prize.tiers 的 share 必须非负且合计不超过1")
+    public boolean isSharesWithinPool() {
+        double total = 0;
+        for (Tier tier : tiers) {
+            if (tier.getShare() < 0) {
+                return false;
+            }
+            total += tier.getShare();
+        }
+        // 允许配置中小数相加的舍入误差
+        return total <= 1 + 1e-9;
+    }
+
+    @Data
+    public static class Tier {
+
+        /**
+         * 固定名次数（与percent二选一）
+         */
+        private Integer top;
+
+        /**
+         * 名次数占参赛人数的百分比（与top二选一）
+         */
+        private Double percent;
+
+        /**
+         * 占奖池的比例
+         */
+        private double share;
+
+        public Tier() {
+        }
+
+        public Tier(Integer top, Double percent, double share) {
+            this.top = top;
+            this.percent = percent;
+            this.share = share;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.trialsisland.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 比赛事件日志配置（contest.wal）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "contest.wal")
+public class ContestWalProperties {
+
+    /**
+     * 是否启用事件日志，关闭后比赛数据只保存在内存中
+     * 默认关闭，避免测试和本地开发在工作目录下预分配段文件、重放上次运行留下的比赛；部署时显式开启
+     */
+    private boolean enabled = false;
+
+    /**
+     * 日志目录
+     */
+    private String dir = "data/contest-wal";
+
+    /**
+     * 单个段文件大小（MB）
+     */
+    private int segmentSizeMb = 64;
+
+    /**
+     * 距上次快照累计多少条事件后生成新快照
+     */
+    private long snapshotEvents = 1_000_000;
+}
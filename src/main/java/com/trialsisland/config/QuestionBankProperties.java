@@ -0,0 +1,31 @@
+package com.trialsisland.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 题库文件配置（question.bank）
+ * 目录下的 *.jsonl（每行一道题的JSON）和 *.csv（首行为列名）文件都会被加载，
+ * 目录不存在或没有题库文件时使用内置的默认题库
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "question.bank")
+public class QuestionBankProperties {
+
+    /**
+     * 题库文件目录
+     */
+    private String dir = "data/questions";
+
+    /**
+     * 是否监听目录变化，文件变化后自动重新加载题库
+     */
+    private boolean watch = true;
+
+    /**
+     * 并行加载文件的线程数
+     */
+    private int loadThreads = Runtime.getRuntime().availableProcessors();
+}
@@ -0,0 +1,39 @@
+package com.trialsisland.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 题目统计与难度校准配置（question.stats）
+ * 校准任务按观察到的正确率重新划分难度：正确率 >= 80% 为1级，>= 60% 为2级，
+ * >= 40% 为3级，>= 20% 为4级，其余为5级
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "question.stats")
+public class QuestionStatsProperties {
+
+    /**
+     * 可以查看题目统计的管理员用户ID
+     */
+    private List<Long> adminUserIds = new ArrayList<>(List.of(1L));
+
+    /**
+     * 是否按Elo难度分自动校准题目难度
+     */
+    private boolean calibrationEnabled = true;
+
+    /**
+     * 作答次数达到多少后才参与校准
+     */
+    private long calibrationMinAttempts = 30;
+
+    /**
+     * 校准间隔（毫秒）
+     */
+    private long calibrationIntervalMs = 300_000;
+}
@@ -28,6 +28,8 @@ public class WebConfig implements WebMvcConfigurer {
                         "/api/auth/register",
                         "/hello",
                         "/error",
+                        // 排行榜推送为公开数据，且EventSource无法携带Authorization请求头
+                        "/api/contest/*/ranking/stream",
                         // 排除静态资源
                         "/*.html",
                         "/*.css",
@@ -1,17 +1,21 @@
 package com.trialsisland.controller;
 
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.trialsisland.common.Result;
 import com.trialsisland.dto.ContestAnswerRequest;
 import com.trialsisland.dto.JoinContestRequest;
-import com.trialsisland.dto.QuestionResponse;
+import com.trialsisland.dto.RankingPageResponse;
 import com.trialsisland.entity.Contest;
 import com.trialsisland.entity.ContestParticipation;
+import com.trialsisland.service.ContestLiveService;
 import com.trialsisland.service.ContestService;
 import com.trialsisland.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +31,9 @@ public class ContestController {
     @Autowired
     private ContestService contestService;
 
+    @Autowired
+    private ContestLiveService contestLiveService;
+
     @Autowired
     private UserService userService;
 
@@ -70,10 +77,8 @@ public class ContestController {
     public Result<Map<String, Object>> startContest(@PathVariable Long contestId,
                                                       HttpServletRequest httpRequest) {
         Long userId = (Long) httpRequest.getAttribute("userId");
-        contestService.startContest(contestId, userId);
-        
-        // 获取比赛题目
-        List<QuestionResponse> questions = contestService.getContestQuestions(contestId);
+        // 比赛题目（预序列化的JSON，直接写出）
+        RawValue questions = contestService.startContest(contestId, userId);
         
         Map<String, Object> result = new HashMap<>();
         result.put("questions", questions);
@@ -117,13 +122,37 @@ public class ContestController {
 
     /**
      * 获取比赛排行榜
+     * 默认按offset/limit分页；top=N时返回前N名；around=true时返回我的名次前后k名
      */
     @GetMapping("/{contestId}/ranking")
-    public Result<List<ContestParticipation>> getRanking(@PathVariable Long contestId) {
-        List<ContestParticipation> ranking = contestService.getContestRanking(contestId);
+    public Result<RankingPageResponse> getRanking(@PathVariable Long contestId,
+                                                  @RequestParam(required = false) Integer top,
+                                                  @RequestParam(required = false, defaultValue = "false") Boolean around,
+                                                  @RequestParam(required = false, defaultValue = "5") Integer k,
+                                                  @RequestParam(required = false, defaultValue = "0") Integer offset,
+                                                  @RequestParam(required = false, defaultValue = "20") Integer limit,
+                                                  HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        RankingPageResponse ranking;
+        if (Boolean.TRUE.equals(around)) {
+            ranking = contestService.getRankingAround(contestId, userId, k);
+        } else if (top != null) {
+            ranking = contestService.getRankingPage(contestId, userId, 0, top);
+        } else {
+            ranking = contestService.getRankingPage(contestId, userId, offset, limit);
+        }
         return Result.success(ranking);
     }
 
+    /**
+     * 订阅排行榜实时推送（SSE）
+     * 首帧为前N名全量快照，之后按固定周期推送增量帧
+     */
+    @GetMapping(value = "/{contestId}/ranking/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRanking(@PathVariable Long contestId) {
+        return contestLiveService.subscribe(contestId);
+    }
+
     /**
      * 获取用户参赛记录
      */
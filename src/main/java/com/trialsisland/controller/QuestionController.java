@@ -1,10 +1,15 @@
 package com.trialsisland.controller;
 
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.trialsisland.common.Result;
-import com.trialsisland.dto.QuestionResponse;
+import com.trialsisland.dto.AnswerHistoryPage;
+import com.trialsisland.dto.BatchSubmitAnswerRequest;
+import com.trialsisland.dto.BatchSubmitAnswerResponse;
+import com.trialsisland.dto.QuestionStatsResponse;
+import com.trialsisland.dto.ReviewResponse;
 import com.trialsisland.dto.SubmitAnswerRequest;
 import com.trialsisland.dto.SubmitAnswerResponse;
-import com.trialsisland.entity.UserAnswer;
+import com.trialsisland.dto.UserStatsResponse;
 import com.trialsisland.service.QuestionService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -26,12 +31,12 @@ public class QuestionController {
     private QuestionService questionService;
 
     /**
-     * 获取单个题目
+     * 获取单个题目（预序列化的JSON，直接写出）
      */
     @GetMapping("/{questionId}")
-    public Result<QuestionResponse> getQuestion(@PathVariable Long questionId) {
+    public Result<RawValue> getQuestion(@PathVariable Long questionId) {
         log.info("获取题目，题目ID: {}", questionId);
-        QuestionResponse question = questionService.getQuestion(questionId);
+        RawValue question = questionService.getQuestionJson(questionId);
         return Result.success(question);
     }
 
@@ -39,24 +44,57 @@ public class QuestionController {
      * 随机获取一道题目
      */
     @GetMapping("/random")
-    public Result<QuestionResponse> getRandomQuestion() {
+    public Result<RawValue> getRandomQuestion() {
         log.info("随机获取一道题目");
-        QuestionResponse question = questionService.getRandomQuestion();
+        RawValue question = questionService.getRandomQuestionJson();
         return Result.success(question);
     }
 
     /**
      * 获取多道题目（用于做题）
-     * 支持并发访问
+     * 支持按难度范围、题目类型、分值范围筛选，支持并发访问
      */
     @GetMapping("/list")
-    public Result<List<QuestionResponse>> getQuestions(
-            @RequestParam(required = false, defaultValue = "5") Integer count) {
-        log.info("获取题目列表，数量: {}", count);
-        List<QuestionResponse> questions = questionService.getQuestions(count);
+    public Result<List<RawValue>> getQuestions(
+            @RequestParam(required = false, defaultValue = "5") Integer count,
+            @RequestParam(required = false) Integer minDifficulty,
+            @RequestParam(required = false) Integer maxDifficulty,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer minScore,
+            @RequestParam(required = false) Integer maxScore) {
+        log.info("获取题目列表，数量: {}, 难度: {}-{}, 类型: {}, 分值: {}-{}",
+                count, minDifficulty, maxDifficulty, type, minScore, maxScore);
+        List<RawValue> questions = questionService.getQuestionsJson(count, minDifficulty, maxDifficulty,
+                type, minScore, maxScore);
         return Result.success(questions);
     }
 
+    /**
+     * 自适应获取题目：按当前用户的能力分挑选难度接近的题目
+     */
+    @GetMapping("/adaptive")
+    public Result<List<RawValue>> getAdaptiveQuestions(
+            @RequestParam(required = false, defaultValue = "5") Integer count,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("自适应获取题目，用户ID: {}, 数量: {}", userId, count);
+        List<RawValue> questions = questionService.getAdaptiveQuestionsJson(userId, count);
+        return Result.success(questions);
+    }
+
+    /**
+     * 错题复习：取出已到期的错题，作答后按结果安排下次复习
+     */
+    @GetMapping("/review")
+    public Result<ReviewResponse> getReviewQuestions(
+            @RequestParam(required = false, defaultValue = "5") Integer count,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("获取复习题目，用户ID: {}, 数量: {}", userId, count);
+        ReviewResponse review = questionService.getReviewQuestions(userId, count);
+        return Result.success(review);
+    }
+
     /**
      * 提交答案
      * 支持并发提交
@@ -76,14 +114,33 @@ public class QuestionController {
     }
 
     /**
-     * 获取用户答题历史
+     * 批量提交答案（离线答题后一次同步）
+     * 各条答案独立判题，结果顺序与请求一致
+     */
+    @PostMapping("/submit/batch")
+    public Result<BatchSubmitAnswerResponse> submitAnswers(
+            @Valid @RequestBody BatchSubmitAnswerRequest request,
+            HttpServletRequest httpRequest) {
+        Long userId = (Long) httpRequest.getAttribute("userId");
+        log.info("用户 {} 批量提交答案，共 {} 条", userId, request.getAnswers().size());
+
+        BatchSubmitAnswerResponse response = questionService.submitAnswers(userId, request.getAnswers());
+        return Result.success(response);
+    }
+
+    /**
+     * 分页获取用户答题历史，按提交时间从新到旧
+     * cursor为上一页返回的nextCursor，不传表示从最新一条开始
      */
     @GetMapping("/history")
-    public Result<List<UserAnswer>> getUserAnswerHistory(HttpServletRequest request) {
+    public Result<AnswerHistoryPage> getUserAnswerHistory(
+            @RequestParam(required = false) Integer cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer limit,
+            HttpServletRequest request) {
         Long userId = (Long) request.getAttribute("userId");
-        log.info("获取用户答题历史，用户ID: {}", userId);
+        log.info("获取用户答题历史，用户ID: {}, 游标: {}, 数量: {}", userId, cursor, limit);
         
-        List<UserAnswer> history = questionService.getUserAnswerHistory(userId);
+        AnswerHistoryPage history = questionService.getUserAnswerHistory(userId, cursor, limit);
         return Result.success(history);
     }
 
@@ -98,4 +155,41 @@ public class QuestionController {
         Integer totalScore = questionService.getUserTotalScore(userId);
         return Result.success(totalScore);
     }
+
+    /**
+     * 获取用户答题统计（总得分、答题次数、正确率、按难度的正确率）
+     */
+    @GetMapping("/stats")
+    public Result<UserStatsResponse> getUserStats(HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("获取用户答题统计，用户ID: {}", userId);
+
+        UserStatsResponse stats = questionService.getUserStats(userId);
+        return Result.success(stats);
+    }
+
+    /**
+     * 按作答次数从多到少列出题目统计（管理员）
+     */
+    @GetMapping("/admin/stats")
+    public Result<List<QuestionStatsResponse>> listQuestionStats(
+            @RequestParam(required = false, defaultValue = "50") Integer limit,
+            HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("获取题目统计列表，用户ID: {}, 数量: {}", userId, limit);
+
+        return Result.success(questionService.listQuestionStats(userId, limit));
+    }
+
+    /**
+     * 获取单道题目的作答统计（管理员）
+     */
+    @GetMapping("/admin/stats/{questionId}")
+    public Result<QuestionStatsResponse> getQuestionStats(@PathVariable Long questionId,
+                                                          HttpServletRequest request) {
+        Long userId = (Long) request.getAttribute("userId");
+        log.info("获取题目统计，用户ID: {}, 题目ID: {}", userId, questionId);
+
+        return Result.success(questionService.getQuestionStats(userId, questionId));
+    }
 }
\ No newline at end of file
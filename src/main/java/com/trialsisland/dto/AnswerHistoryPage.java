@@ -0,0 +1,34 @@
+package com.trialsisland.dto;
+
+import com.trialsisland.entity.UserAnswer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 答题历史分页响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnswerHistoryPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 答题记录总数
+     */
+    private Integer total;
+
+    /**
+     * 下一页游标（没有更多数据时为null）
+     */
+    private Integer nextCursor;
+
+    /**
+     * 本页答题记录，按提交时间从新到旧
+     */
+    private List<UserAnswer> items;
+}
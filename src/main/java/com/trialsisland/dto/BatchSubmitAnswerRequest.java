@@ -0,0 +1,24 @@
+package com.trialsisland.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量提交答案请求DTO
+ * 单条答案不做整体校验，校验失败的条目在结果中单独返回失败原因，不影响其他条目
+ */
+@Data
+public class BatchSubmitAnswerRequest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 答案列表
+     */
+    @NotEmpty(message = "答案列表不能为空")
+    @Size(max = 200, message = "一次最多提交200道题的答案")
+    private List<SubmitAnswerRequest> answers;
+}
@@ -0,0 +1,60 @@
+package com.trialsisland.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 批量提交答案响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSubmitAnswerResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 成功判题的条数
+     */
+    private Integer accepted;
+
+    /**
+     * 本批次总得分
+     */
+    private Integer totalScore;
+
+    /**
+     * 各条答案的结果，顺序与请求一致
+     */
+    private List<Item> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 题目ID
+         */
+        private Long questionId;
+
+        /**
+         * 是否判题成功
+         */
+        private Boolean success;
+
+        /**
+         * 失败原因（成功时为null）
+         */
+        private String message;
+
+        /**
+         * 判题结果（失败时为null）
+         */
+        private SubmitAnswerResponse result;
+    }
+}
@@ -1,18 +1,15 @@
 package com.trialsisland.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.io.Serializable;
 import java.util.List;
 
 /**
  * 题目响应DTO（不包含答案）
+ * 只读对象，每道题在入库时生成一次，所有请求共享
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
 public class QuestionResponse implements Serializable {
     private static final long serialVersionUID = 1L;
 
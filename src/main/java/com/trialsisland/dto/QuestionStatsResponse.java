@@ -0,0 +1,75 @@
+package com.trialsisland.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 题目作答统计响应DTO（管理接口）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionStatsResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 题目ID
+     */
+    private Long questionId;
+
+    /**
+     * 当前难度（1-5）
+     */
+    private Integer difficulty;
+
+    /**
+     * 作答次数
+     */
+    private Long attempts;
+
+    /**
+     * 答对次数
+     */
+    private Long correctCount;
+
+    /**
+     * 正确率（0-1）
+     */
+    private Double accuracy;
+
+    /**
+     * 平均答题时长（秒，没有带时长的作答时为null）
+     */
+    private Double averageDuration;
+
+    /**
+     * 答题时长分布
+     */
+    private List<DurationBucket> durationHistogram;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DurationBucket implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 时长下界（秒，含）
+         */
+        private Integer fromSeconds;
+
+        /**
+         * 时长上界（秒，不含，最后一桶为null）
+         */
+        private Integer toSeconds;
+
+        /**
+         * 作答次数
+         */
+        private Long count;
+    }
+}
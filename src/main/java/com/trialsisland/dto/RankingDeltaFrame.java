@@ -0,0 +1,48 @@
+package com.trialsisland.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 排行榜增量推送帧DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingDeltaFrame implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 比赛ID
+     */
+    private Long contestId;
+
+    /**
+     * 帧序号（每场比赛递增）
+     */
+    private Long seq;
+
+    /**
+     * 是否为全量快照（订阅时的首帧）
+     */
+    private Boolean snapshot;
+
+    /**
+     * 榜上总人数
+     */
+    private Integer total;
+
+    /**
+     * 新上榜或名次变化的条目
+     */
+    private List<RankingItem> changes;
+
+    /**
+     * 跌出推送范围的用户ID
+     */
+    private List<Long> removed;
+}
@@ -0,0 +1,42 @@
+package com.trialsisland.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 排行榜条目DTO（精简字段）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingItem implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 排名
+     */
+    private Integer rank;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 用户昵称
+     */
+    private String username;
+
+    /**
+     * 总得分
+     */
+    private Integer score;
+
+    /**
+     * 总用时（秒）
+     */
+    private Integer duration;
+}
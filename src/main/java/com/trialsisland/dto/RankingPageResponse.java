@@ -0,0 +1,38 @@
+package com.trialsisland.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 排行榜分页响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingPageResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 榜上总人数
+     */
+    private Integer total;
+
+    /**
+     * 当前用户排名（未上榜为null）
+     */
+    private Integer myRank;
+
+    /**
+     * 下一页起始偏移量（没有更多数据时为null）
+     */
+    private Integer nextOffset;
+
+    /**
+     * 本页排行数据
+     */
+    private List<RankingItem> items;
+}
@@ -0,0 +1,35 @@
+package com.trialsisland.dto;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 错题复习响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 复习队列中的题目总数
+     */
+    private Integer total;
+
+    /**
+     * 队列中最早的到期时间（本次取出的题目已顺延），队列为空时为null
+     */
+    private LocalDateTime nextDueTime;
+
+    /**
+     * 本次取出的到期题目（预序列化JSON），按到期先后排列
+     */
+    private List<RawValue> questions;
+}
@@ -0,0 +1,75 @@
+package com.trialsisland.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 用户答题统计响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserStatsResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 总得分
+     */
+    private Long totalScore;
+
+    /**
+     * 答题次数
+     */
+    private Long attempts;
+
+    /**
+     * 答对次数
+     */
+    private Long correctCount;
+
+    /**
+     * 正确率（0-1）
+     */
+    private Double accuracy;
+
+    /**
+     * 按难度统计（只包含答过的难度）
+     */
+    private List<DifficultyStats> byDifficulty;
+
+    /**
+     * 能力分（Elo，初始1500），自适应选题据此挑选难度接近的题目
+     */
+    private Double rating;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DifficultyStats implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 题目难度（1-5）
+         */
+        private Integer difficulty;
+
+        /**
+         * 答题次数
+         */
+        private Long attempts;
+
+        /**
+         * 答对次数
+         */
+        private Long correctCount;
+
+        /**
+         * 正确率（0-1）
+         */
+        private Double accuracy;
+    }
+}
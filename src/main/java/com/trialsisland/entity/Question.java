@@ -33,7 +33,7 @@ public class Question implements Serializable {
     private String imageUrl;
 
     /**
-     * 题目类型（choice: 选择题，填空等其他类型可扩展）
+     * 题目类型（choice: 单选题，multiple: 多选题，judge: 判断题，number: 数值题，blank: 填空题）
      */
     private String type;
 
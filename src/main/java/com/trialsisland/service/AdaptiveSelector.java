@@ -0,0 +1,245 @@
+package com.trialsisland.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * 自适应选题：Elo评分
+ * 每个用户有能力分，每道题有难度分，用户答题后按预期正确率与实际结果的差值同时调整两者：
+ * 预期正确率 p = 1 / (1 + 10^((题目分 - 用户分) / 400))，用户分 += K * (结果 - p)，题目分 -= K' * (结果 - p)
+ * 题目按难度分（取整）排序存放在跳表中，选题时从目标分数向两侧扩展，代价为 O(log n + 返回数量 + 跳过数量)
+ * 用户分用CAS更新；题目分调整后需要在跳表中移动位置，按题目加锁（只锁这一道题）
+ */
+class AdaptiveSelector {
+
+    // 用户初始能力分
+    static final double INITIAL_USER_RATING = 1500;
+    // 难度1-5对应的初始题目分：1100, 1300, 1500, 1700, 1900
+    private static final double DIFFICULTY_STEP = 200;
+    private static final double USER_K = 32;
+    // 题目分的调整幅度随作答次数减小，最低为MIN_QUESTION_K
+    private static final double QUESTION_K = 32;
+    private static final double MIN_QUESTION_K = 4;
+    // 选题目标比用户分低一些，让预期正确率约为70%
+    private static final double TARGET_OFFSET = -150;
+    // 目标分的随机扰动，避免同一用户反复拿到同一批题
+    private static final double TARGET_JITTER = 100;
+
+    private final Map<Long, AtomicLong> userRatings = new ConcurrentHashMap<>();
+    private final Map<Long, QuestionRating> questionRatings = new ConcurrentHashMap<>();
+    // 按题目分排序的索引
+    private final ConcurrentSkipListSet<RatedQuestion> index = new ConcurrentSkipListSet<>();
+
+    /**
+     * 加入题目，已有评分的题目保留原评分（题库重新加载后延续）
+     */
+    void add(long questionId, Integer difficulty) {
+        QuestionRating rating = questionRatings.computeIfAbsent(questionId,
+                id -> new QuestionRating(initialRating(difficulty)));
+        synchronized (rating) {
+            if (!rating.indexed) {
+                index.add(new RatedQuestion(rating.indexedRating, questionId));
+                rating.indexed = true;
+            }
+        }
+    }
+
+    /**
+     * 从索引移除题目，评分保留，题目重新加入时延续
+     */
+    void remove(long questionId) {
+        QuestionRating rating = questionRatings.get(questionId);
+        if (rating == null) {
+            return;
+        }
+        synchronized (rating) {
+            if (rating.indexed) {
+                index.remove(new RatedQuestion(rating.indexedRating, questionId));
+                rating.indexed = false;
+            }
+        }
+    }
+
+    /**
+     * 只保留指定的题目（题库重新加载后调用）
+     */
+    void retain(LongPredicate present) {
+        for (Long questionId : questionRatings.keySet()) {
+            if (!present.test(questionId)) {
+                remove(questionId);
+            }
+        }
+    }
+
+    /**
+     * 按一次作答结果更新用户分和题目分
+     */
+    void record(long userId, long questionId, boolean isCorrect) {
+        QuestionRating question = questionRatings.get(questionId);
+        if (question == null) {
+            return;
+        }
+        AtomicLong user = userRatings.computeIfAbsent(userId,
+                id -> new AtomicLong(Double.doubleToLongBits(INITIAL_USER_RATING)));
+        double questionRating = Double.longBitsToDouble(question.rating.get());
+        double userRating = Double.longBitsToDouble(user.get());
+        double delta = (isCorrect ? 1 : 0) - expected(userRating, questionRating);
+
+        addRating(user, USER_K * delta);
+        long attempts = question.attempts.incrementAndGet();
+        double questionK = Math.max(MIN_QUESTION_K, QUESTION_K / Math.sqrt(attempts));
+        double updated = addRating(question.rating, -questionK * delta);
+
+        // 取整后的分数变化时才在跳表中移动位置
+        int rounded = (int) Math.round(updated);
+        if (rounded != question.indexedRating) {
+            synchronized (question) {
+                if (question.indexed && rounded != question.indexedRating) {
+                    index.remove(new RatedQuestion(question.indexedRating, questionId));
+                    index.add(new RatedQuestion(rounded, questionId));
+                }
+                question.indexedRating = rounded;
+            }
+        }
+    }
+
+    double userRating(long userId) {
+        AtomicLong rating = userRatings.get(userId);
+        return rating != null ? Double.longBitsToDouble(rating.get()) : INITIAL_USER_RATING;
+    }
+
+    /**
+     * 题目当前的难度分，没有评分的题目返回NaN
+     */
+    double questionRating(long questionId) {
+        QuestionRating rating = questionRatings.get(questionId);
+        return rating != null ? Double.longBitsToDouble(rating.rating.get()) : Double.NaN;
+    }
+
+    /**
+     * 题目评分累计的作答次数
+     */
+    long questionAttempts(long questionId) {
+        QuestionRating rating = questionRatings.get(questionId);
+        return rating != null ? rating.attempts.get() : 0;
+    }
+
+    /**
+     * 难度分换算回难度1-5（initialRating的逆运算，取最接近的一级）
+     */
+    static int difficultyFor(double rating) {
+        long level = Math.round((rating - INITIAL_USER_RATING) / DIFFICULTY_STEP) + 3;
+        return (int) Math.min(Math.max(level, 1), 5);
+    }
+
+    /**
+     * 选出难度分最接近用户目标分的count道题，跳过exclude中的题目，顺序随机
+     */
+    long[] select(long userId, int count, Set<Long> exclude) {
+        double target = userRating(userId) + TARGET_OFFSET
+                + (ThreadLocalRandom.current().nextDouble() * 2 - 1) * TARGET_JITTER;
+        RatedQuestion pivot = new RatedQuestion((int) Math.round(target), Long.MIN_VALUE);
+        Iterator<RatedQuestion> up = index.tailSet(pivot, true).iterator();
+        Iterator<RatedQuestion> down = index.headSet(pivot, false).descendingIterator();
+        RatedQuestion nextUp = up.hasNext() ? up.next() : null;
+        RatedQuestion nextDown = down.hasNext() ? down.next() : null;
+
+        List<Long> picked = new ArrayList<>(count);
+        while (picked.size() < count && (nextUp != null || nextDown != null)) {
+            RatedQuestion candidate;
+            if (nextDown == null || (nextUp != null
+                    && Math.abs(nextUp.rating - target) <= Math.abs(nextDown.rating - target))) {
+                candidate = nextUp;
+                nextUp = up.hasNext() ? up.next() : null;
+            } else {
+                candidate = nextDown;
+                nextDown = down.hasNext() ? down.next() : null;
+            }
+            if (!exclude.contains(candidate.questionId)) {
+                picked.add(candidate.questionId);
+            }
+        }
+
+        long[] result = new long[picked.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = picked.get(i);
+        }
+        shuffle(result);
+        return result;
+    }
+
+    private static double expected(double userRating, double questionRating) {
+        return 1 / (1 + Math.pow(10, (questionRating - userRating) / 400));
+    }
+
+    private static double initialRating(Integer difficulty) {
+        int level = Math.min(Math.max(difficulty != null ? difficulty : 3, 1), 5);
+        return INITIAL_USER_RATING + (level - 3) * DIFFICULTY_STEP;
+    }
+
+    /**
+     * CAS累加评分，返回更新后的值
+     */
+    private static double addRating(AtomicLong rating, double delta) {
+        while (true) {
+            long current = rating.get();
+            double updated = Double.longBitsToDouble(current) + delta;
+            if (rating.compareAndSet(current, Double.doubleToLongBits(updated))) {
+                return updated;
+            }
+        }
+    }
+
+    private static void shuffle(long[] values) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = values.length - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            long tmp = values[i];
+            values[i] = values[swap];
+            values[swap] = tmp;
+        }
+    }
+
+    /**
+     * 题目评分
+     */
+    private static final class QuestionRating {
+        final AtomicLong rating;
+        final AtomicLong attempts = new AtomicLong();
+        // 跳表中的位置（取整后的分数）和是否在跳表中，在该对象的锁内修改
+        volatile int indexedRating;
+        boolean indexed;
+
+        QuestionRating(double rating) {
+            this.rating = new AtomicLong(Double.doubleToLongBits(rating));
+            this.indexedRating = (int) Math.round(rating);
+        }
+    }
+
+    /**
+     * 跳表节点：按分数、题目ID排序
+     */
+    private static final class RatedQuestion implements Comparable<RatedQuestion> {
+        final int rating;
+        final long questionId;
+
+        RatedQuestion(int rating, long questionId) {
+            this.rating = rating;
+            this.questionId = questionId;
+        }
+
+        @Override
+        public int compareTo(RatedQuestion other) {
+            int byRating = Integer.compare(rating, other.rating);
+            return byRating != 0 ? byRating : Long.compare(questionId, other.questionId);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.UserAnswer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个用户的答题记录日志（只追加）
+ * 记录按提交顺序存放在固定大小的分块中，第i条记录的序号就是i，天然按提交时间有序；
+ * 追加时加锁（同一用户的并发提交很少），写入完成后才发布新的条数，
+ * 读取只读volatile的条数和分块目录，不加锁，按序号定位为O(1)，分页读取为O(页大小)
+ */
+class AnswerLog {
+
+    private static final int CHUNK_SHIFT = 8;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // 分块目录，扩容时整体替换
+    private volatile UserAnswer[][] chunks = new UserAnswer[1][];
+    // 已发布的记录条数，写在记录之后，读到的条数以内的记录都已完整写入
+    private volatile int size;
+
+    /**
+     * 追加一条记录，返回其序号
+     */
+    synchronized int append(UserAnswer answer) {
+        int index = size;
+        UserAnswer[][] current = place(chunks, index, answer);
+        chunks = current;
+        size = index + 1;
+        return index;
+    }
+
+    /**
+     * 一次追加多条记录，全部写入后才发布新的条数，读者要么看不到这批记录，要么看到全部
+     */
+    synchronized void appendAll(List<UserAnswer> answers) {
+        int index = size;
+        UserAnswer[][] current = chunks;
+        for (UserAnswer answer : answers) {
+            current = place(current, index++, answer);
+        }
+        chunks = current;
+        size = index;
+    }
+
+    /**
+     * 把记录放到指定序号的位置，需要时扩容目录或分配新分块，返回（可能是新的）目录
+     */
+    private static UserAnswer[][] place(UserAnswer[][] current, int index, UserAnswer answer) {
+        int chunk = index >>> CHUNK_SHIFT;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new UserAnswer[CHUNK_SIZE];
+        }
+        current[chunk][index & CHUNK_MASK] = answer;
+        return current;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 从序号小于before的记录开始，按从新到旧的顺序读取最多limit条
+     */
+    List<UserAnswer> readBackward(int before, int limit) {
+        // 先读条数再读目录，保证条数以内的分块都可见
+        int end = Math.min(before, size);
+        UserAnswer[][] current = chunks;
+        int start = Math.max(end - limit, 0);
+        List<UserAnswer> page = new ArrayList<>(Math.max(end - start, 0));
+        for (int i = end - 1; i >= start; i--) {
+            page.add(current[i >>> CHUNK_SHIFT][i & CHUNK_MASK]);
+        }
+        return page;
+    }
+}
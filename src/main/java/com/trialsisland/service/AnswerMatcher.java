@@ -0,0 +1,419 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.Question;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 判题器：题目入库时按题型把标准答案解析、归一化一次，之后每次判题只扫描用户答案，不再分配对象
+ * 题型（Question.type）：
+ * choice   单选题，答案为选项字母；用户可提交字母、"B.选项内容"或选项内容本身（"A B"、"A、B"等多个字母判错）；
+ *          标准答案有多个字母时按多选题判
+ * multiple 多选题，答案为选项字母组合（如 "ABD" 或 "A,B,D"），按位图比较，与顺序无关
+ * judge    判断题，答案为 对/错、正确/错误、T/F、true/false、是/否、√/×、1/0 之一
+ * number   数值题，答案为数值，可写成 "3.14±0.01" 指定允许误差
+ * blank    填空题，多个可接受答案用 | 分隔，比较时忽略空白和大小写
+ * 其他题型按去掉首尾空白后忽略大小写完全相等判定
+ */
+@Slf4j
+abstract class AnswerMatcher {
+
+    // 数值题未指定误差时的默认误差
+    private static final double DEFAULT_TOLERANCE = 1e-9;
+
+    private static final String[] TRUE_TOKENS = {"对", "正确", "是", "√", "T", "TRUE", "Y", "YES", "1"};
+    private static final String[] FALSE_TOKENS = {"错", "错误", "否", "×", "F", "FALSE", "N", "NO", "0"};
+
+    /**
+     * 判断用户答案是否正确，答案为null或格式不符返回false
+     */
+    abstract boolean matches(String answer);
+
+    /**
+     * 按题型编译标准答案，标准答案格式不符时退回完全相等判定并记录警告
+     */
+    static AnswerMatcher compile(Question question) {
+        String answer = question.getAnswer() != null ? question.getAnswer().trim() : "";
+        String type = question.getType() != null ? question.getType().trim().toLowerCase(Locale.ROOT) : "";
+        try {
+            switch (type) {
+                case "choice":
+                case "multiple": {
+                    int mask = parseLetters(answer, 0, answer.length());
+                    if (mask <= 0) {
+                        throw new IllegalArgumentException("选项字母无效");
+                    }
+                    return Integer.bitCount(mask) == 1 && type.equals("choice")
+                            ? new SingleChoice(Integer.numberOfTrailingZeros(mask), question.getOptions())
+                            : new MultipleChoice(mask);
+                }
+                case "judge": {
+                    Boolean value = parseJudge(answer);
+                    if (value == null) {
+                        throw new IllegalArgumentException("判断题答案无效");
+                    }
+                    return new Judge(value);
+                }
+                case "number":
+                    return Numeric.parse(answer);
+                case "blank":
+                    return new Blank(answer);
+                default:
+                    return new Exact(answer);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("题目 {} 的答案 \"{}\" 与题型 {} 不符（{}），按完全相等判定",
+                    question.getId(), answer, type, e.getMessage());
+            return new Exact(answer);
+        }
+    }
+
+    /**
+     * 单选题：比较选项下标
+     */
+    private static final class SingleChoice extends AnswerMatcher {
+        private final int index;
+        // 正确选项去掉字母前缀后的内容，用户直接提交选项内容时比较
+        private final String optionText;
+
+        SingleChoice(int index, List<String> options) {
+            this.index = index;
+            String option = options != null && index < options.size() ? options.get(index) : null;
+            this.optionText = option != null ? option.substring(optionBodyStart(option)).trim() : null;
+        }
+
+        @Override
+        boolean matches(String answer) {
+            if (answer == null) {
+                return false;
+            }
+            int start = skipSpace(answer, 0);
+            int end = trimEnd(answer, start);
+            if (start == end) {
+                return false;
+            }
+            int letter = letterIndex(answer.charAt(start));
+            if (letter >= 0 && start + 1 == end) {
+                return letter == index;
+            }
+            // 字母后紧跟分隔符时，分隔符之后只能为空或正是该选项的内容（"B."、"B、"、"B.针灸术"）
+            if (letter >= 0 && isOptionSeparator(answer.charAt(start + 1))) {
+                int rest = start + 1;
+                while (rest < end && isOptionSeparator(answer.charAt(rest))) {
+                    rest++;
+                }
+                return letter == index && (rest == end || matchesOptionText(answer, rest, end));
+            }
+            return matchesOptionText(answer, start, end);
+        }
+
+        private boolean matchesOptionText(String answer, int start, int end) {
+            return optionText != null && !optionText.isEmpty() && end - start == optionText.length()
+                    && answer.regionMatches(true, start, optionText, 0, optionText.length());
+        }
+    }
+
+    /**
+     * 多选题：选项集合用位图表示
+     */
+    private static final class MultipleChoice extends AnswerMatcher {
+        private final int mask;
+
+        MultipleChoice(int mask) {
+            this.mask = mask;
+        }
+
+        @Override
+        boolean matches(String answer) {
+            return answer != null && parseLetters(answer, 0, answer.length()) == mask;
+        }
+    }
+
+    /**
+     * 判断题
+     */
+    private static final class Judge extends AnswerMatcher {
+        private final boolean value;
+
+        Judge(boolean value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean matches(String answer) {
+            if (answer == null) {
+                return false;
+            }
+            int start = skipSpace(answer, 0);
+            int end = trimEnd(answer, start);
+            return matchesAny(answer, start, end, value ? TRUE_TOKENS : FALSE_TOKENS);
+        }
+    }
+
+    /**
+     * 数值题：|用户答案 - 标准答案| <= 误差
+     */
+    private static final class Numeric extends AnswerMatcher {
+        private final double value;
+        private final double tolerance;
+
+        Numeric(double value, double tolerance) {
+            this.value = value;
+            this.tolerance = tolerance;
+        }
+
+        static Numeric parse(String answer) {
+            int separator = answer.indexOf('±');
+            int separatorLength = 1;
+            if (separator < 0) {
+                separator = answer.indexOf("+-");
+                separatorLength = 2;
+            }
+            double value = parseNumber(answer, 0, separator >= 0 ? separator : answer.length());
+            double tolerance = separator >= 0
+                    ? parseNumber(answer, separator + separatorLength, answer.length()) : DEFAULT_TOLERANCE;
+            if (Double.isNaN(value) || Double.isNaN(tolerance) || tolerance < 0) {
+                throw new IllegalArgumentException("数值无效");
+            }
+            return new Numeric(value, tolerance);
+        }
+
+        @Override
+        boolean matches(String answer) {
+            if (answer == null) {
+                return false;
+            }
+            double number = parseNumber(answer, 0, answer.length());
+            return !Double.isNaN(number) && Math.abs(number - value) <= tolerance;
+        }
+    }
+
+    /**
+     * 填空题：多个可接受答案，忽略空白和大小写
+     */
+    private static final class Blank extends AnswerMatcher {
+        private final String[] alternatives;
+
+        Blank(String answer) {
+            String[] parts = answer.split("\\|");
+            int count = 0;
+            for (int i = 0; i < parts.length; i++) {
+                String normalized = normalizeBlank(parts[i]);
+                if (!normalized.isEmpty()) {
+                    parts[count++] = normalized;
+                }
+            }
+            if (count == 0) {
+                throw new IllegalArgumentException("填空题答案为空");
+            }
+            this.alternatives = Arrays.copyOf(parts, count);
+        }
+
+        @Override
+        boolean matches(String answer) {
+            if (answer == null) {
+                return false;
+            }
+            for (String alternative : alternatives) {
+                if (equalsIgnoringSpace(answer, alternative)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 其他题型：去掉首尾空白后忽略大小写完全相等
+     */
+    private static final class Exact extends AnswerMatcher {
+        private final String answer;
+
+        Exact(String answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        boolean matches(String submitted) {
+            if (submitted == null || answer.isEmpty()) {
+                return false;
+            }
+            int start = skipSpace(submitted, 0);
+            int end = trimEnd(submitted, start);
+            return end - start == answer.length() && submitted.regionMatches(true, start, answer, 0, answer.length());
+        }
+    }
+
+    /**
+     * 解析选项字母组合为位图，允许用逗号、顿号、空白分隔；出现其他字符或字母重复返回-1
+     */
+    private static int parseLetters(String value, int start, int end) {
+        int mask = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            int letter = letterIndex(c);
+            if (letter >= 0) {
+                int bit = 1 << letter;
+                if ((mask & bit) != 0) {
+                    return -1;
+                }
+                mask |= bit;
+            } else if (!(c == ',' || c == '，' || c == '、' || Character.isWhitespace(c))) {
+                return -1;
+            }
+        }
+        return mask;
+    }
+
+    private static Boolean parseJudge(String answer) {
+        if (matchesAny(answer, 0, answer.length(), TRUE_TOKENS)) {
+            return Boolean.TRUE;
+        }
+        if (matchesAny(answer, 0, answer.length(), FALSE_TOKENS)) {
+            return Boolean.FALSE;
+        }
+        return null;
+    }
+
+    private static boolean matchesAny(String value, int start, int end, String[] tokens) {
+        for (String token : tokens) {
+            if (end - start == token.length() && value.regionMatches(true, start, token, 0, token.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 选项字母A-Z（含小写和全角）转为下标，不是字母返回-1
+     */
+    private static int letterIndex(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'Ａ' && c <= 'Ｚ') {
+            return c - 'Ａ';
+        }
+        if (c >= 'ａ' && c <= 'ｚ') {
+            return c - 'ａ';
+        }
+        return -1;
+    }
+
+    private static boolean isOptionSeparator(char c) {
+        return c == '.' || c == '．' || c == '、' || c == ')' || c == '）' || c == ':' || c == '：'
+                || Character.isWhitespace(c);
+    }
+
+    /**
+     * 选项内容的起始位置（跳过 "A." 这样的字母前缀）
+     */
+    private static int optionBodyStart(String option) {
+        int start = skipSpace(option, 0);
+        if (start + 1 < option.length() && letterIndex(option.charAt(start)) >= 0
+                && isOptionSeparator(option.charAt(start + 1))) {
+            return start + 2;
+        }
+        return start;
+    }
+
+    /**
+     * 解析十进制数（可带正负号、小数点和逗号千分位，首尾可有空白），格式不符返回NaN
+     */
+    private static double parseNumber(String value, int start, int end) {
+        start = skipSpace(value, start);
+        end = trimEnd(value, start, end);
+        if (start >= end) {
+            return Double.NaN;
+        }
+        boolean negative = false;
+        char first = value.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+        }
+        long digits = 0;
+        int scale = 0;
+        int digitCount = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                // 超过18位有效数字的部分按精度舍去
+                if (digitCount < 18) {
+                    digits = digits * 10 + (c - '0');
+                    digitCount++;
+                    if (fraction) {
+                        scale++;
+                    }
+                } else if (!fraction) {
+                    scale--;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c == ',' && !fraction) {
+                continue;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digitCount == 0) {
+            return Double.NaN;
+        }
+        double result = scale >= 0 ? digits / Math.pow(10, scale) : digits * Math.pow(10, -scale);
+        return negative ? -result : result;
+    }
+
+    private static boolean equalsIgnoringSpace(String value, String normalized) {
+        int j = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (j == normalized.length() || Character.toLowerCase(c) != normalized.charAt(j)) {
+                return false;
+            }
+            j++;
+        }
+        return j == normalized.length();
+    }
+
+    /**
+     * 填空题答案归一化：去掉所有空白并转小写，与equalsIgnoringSpace的比较方式一致
+     */
+    private static String normalizeBlank(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                result.append(Character.toLowerCase(c));
+            }
+        }
+        return result.toString();
+    }
+
+    private static int skipSpace(String value, int start) {
+        while (start < value.length() && Character.isWhitespace(value.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(String value, int start) {
+        return trimEnd(value, start, value.length());
+    }
+
+    private static int trimEnd(String value, int start, int end) {
+        while (end > start && Character.isWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
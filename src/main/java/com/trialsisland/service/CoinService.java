@@ -3,11 +3,14 @@ package com.trialsisland.service;
 import com.trialsisland.entity.CoinAccount;
 import com.trialsisland.entity.CoinTransaction;
 import com.trialsisland.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,42 +37,46 @@ public class CoinService {
      * 初始化用户金币账户
      */
     public CoinAccount createAccount(Long userId) {
-        CoinAccount account = coinAccounts.get(userId);
-        if (account == null) {
-            account = new CoinAccount();
+        // computeIfAbsent保证并发创建时只生成一个账户
+        return coinAccounts.computeIfAbsent(userId, id -> {
+            CoinAccount account = new CoinAccount();
             account.setId(accountIdGenerator.getAndIncrement());
-            account.setUserId(userId);
+            account.setUserId(id);
             account.setBalance(0);
             account.setTotalRecharge(0);
             account.setTotalSpend(0);
             account.setTotalReward(0);
             account.setCreateTime(LocalDateTime.now());
             account.setUpdateTime(LocalDateTime.now());
-            coinAccounts.put(userId, account);
-            transactions.put(userId, new ArrayList<>());
-            log.info("创建用户金币账户，用户ID: {}", userId);
-        }
-        return account;
+            transactions.put(id, new ArrayList<>());
+            log.info("创建用户金币账户，用户ID: {}", id);
+            return account;
+        });
     }
 
     /**
      * 充值金币
      */
-    public synchronized CoinAccount recharge(Long userId, Integer amount, String description) {
+    public CoinAccount recharge(Long userId, Integer amount, String description) {
         if (amount <= 0) {
             throw new BusinessException("充值金额必须大于0");
         }
 
         CoinAccount account = getOrCreateAccount(userId);
-        Integer beforeBalance = account.getBalance();
-        Integer afterBalance = beforeBalance + amount;
-
-        account.setBalance(afterBalance);
-        account.setTotalRecharge(account.getTotalRecharge() + amount);
-        account.setUpdateTime(LocalDateTime.now());
+        Integer beforeBalance;
+        Integer afterBalance;
+        // 按账户加锁，不同用户的金币操作互不阻塞
+        synchronized (account) {
+            beforeBalance = account.getBalance();
+            afterBalance = beforeBalance + amount;
+
+            account.setBalance(afterBalance);
+            account.setTotalRecharge(account.getTotalRecharge() + amount);
+            account.setUpdateTime(LocalDateTime.now());
 
-        // 记录交易
-        addTransaction(userId, 1, amount, beforeBalance, afterBalance, null, description);
+            // 记录交易
+            addTransaction(userId, 1, amount, beforeBalance, afterBalance, null, description);
+        }
         log.info("用户 {} 充值 {} 金币，余额: {} -> {}", userId, amount, beforeBalance, afterBalance);
         return account;
     }
@@ -77,72 +84,146 @@ public class CoinService {
     /**
      * 消费金币
      */
-    public synchronized void spend(Long userId, Integer amount, Long relatedId, String description) {
+    public void spend(Long userId, Integer amount, Long relatedId, String description) {
         if (amount <= 0) {
             throw new BusinessException("消费金额必须大于0");
         }
 
         CoinAccount account = getOrCreateAccount(userId);
-        if (account.getBalance() < amount) {
-            throw new BusinessException("金币余额不足，当前余额: " + account.getBalance());
-        }
-
-        Integer beforeBalance = account.getBalance();
-        Integer afterBalance = beforeBalance - amount;
-
-        account.setBalance(afterBalance);
-        account.setTotalSpend(account.getTotalSpend() + amount);
-        account.setUpdateTime(LocalDateTime.now());
+        Integer beforeBalance;
+        Integer afterBalance;
+        synchronized (account) {
+            if (account.getBalance() < amount) {
+                throw new BusinessException("金币余额不足，当前余额: " + account.getBalance());
+            }
+
+            beforeBalance = account.getBalance();
+            afterBalance = beforeBalance - amount;
+
+            account.setBalance(afterBalance);
+            account.setTotalSpend(account.getTotalSpend() + amount);
+            account.setUpdateTime(LocalDateTime.now());
 
-        // 记录交易（消费用负数）
-        addTransaction(userId, 2, -amount, beforeBalance, afterBalance, relatedId, description);
+            // 记录交易（消费用负数）
+            addTransaction(userId, 2, -amount, beforeBalance, afterBalance, relatedId, description);
+        }
         log.info("用户 {} 消费 {} 金币，余额: {} -> {}", userId, amount, beforeBalance, afterBalance);
     }
 
     /**
      * 发放奖励金币
      */
-    public synchronized void reward(Long userId, Integer amount, Long relatedId, String description) {
+    public void reward(Long userId, Integer amount, Long relatedId, String description) {
         if (amount <= 0) {
             throw new BusinessException("奖励金额必须大于0");
         }
 
         CoinAccount account = getOrCreateAccount(userId);
-        Integer beforeBalance = account.getBalance();
-        Integer afterBalance = beforeBalance + amount;
-
-        account.setBalance(afterBalance);
-        account.setTotalReward(account.getTotalReward() + amount);
-        account.setUpdateTime(LocalDateTime.now());
+        Integer beforeBalance;
+        Integer afterBalance;
+        synchronized (account) {
+            beforeBalance = account.getBalance();
+            afterBalance = beforeBalance + amount;
+
+            account.setBalance(afterBalance);
+            account.setTotalReward(account.getTotalReward() + amount);
+            account.setUpdateTime(LocalDateTime.now());
 
-        // 记录交易
-        addTransaction(userId, 3, amount, beforeBalance, afterBalance, relatedId, description);
+            // 记录交易
+            addTransaction(userId, 3, amount, beforeBalance, afterBalance, relatedId, description);
+        }
         log.info("用户 {} 获得奖励 {} 金币，余额: {} -> {}", userId, amount, beforeBalance, afterBalance);
     }
 
+    /**
+     * 批量发放奖励金币（比赛结算时一次性写入）
+     */
+    public void rewardBatch(List<LedgerItem> items) {
+        int totalAmount = 0;
+        for (LedgerItem item : items) {
+            if (item.getAmount() <= 0) {
+                continue;
+            }
+            CoinAccount account = getOrCreateAccount(item.getUserId());
+            synchronized (account) {
+                Integer beforeBalance = account.getBalance();
+                Integer afterBalance = beforeBalance + item.getAmount();
+
+                account.setBalance(afterBalance);
+                account.setTotalReward(account.getTotalReward() + item.getAmount());
+                account.setUpdateTime(LocalDateTime.now());
+
+                addTransaction(item.getUserId(), 3, item.getAmount(), beforeBalance, afterBalance,
+                        item.getRelatedId(), item.getDescription());
+            }
+            totalAmount += item.getAmount();
+        }
+        log.info("批量发放奖励 {} 笔，共 {} 金币", items.size(), totalAmount);
+    }
+
+    /**
+     * 批量扣费（比赛报名批次一次性扣除报名费）
+     * 余额不足的条目跳过，不影响同批其他条目，返回每个条目是否扣费成功
+     */
+    public boolean[] spendBatch(List<LedgerItem> items) {
+        boolean[] success = new boolean[items.size()];
+        int count = 0;
+        int totalAmount = 0;
+        for (int i = 0; i < items.size(); i++) {
+            LedgerItem item = items.get(i);
+            if (item.getAmount() <= 0) {
+                continue;
+            }
+            CoinAccount account = getOrCreateAccount(item.getUserId());
+            synchronized (account) {
+                Integer beforeBalance = account.getBalance();
+                if (beforeBalance < item.getAmount()) {
+                    continue;
+                }
+                Integer afterBalance = beforeBalance - item.getAmount();
+
+                account.setBalance(afterBalance);
+                account.setTotalSpend(account.getTotalSpend() + item.getAmount());
+                account.setUpdateTime(LocalDateTime.now());
+
+                addTransaction(item.getUserId(), 2, -item.getAmount(), beforeBalance, afterBalance,
+                        item.getRelatedId(), item.getDescription());
+            }
+            success[i] = true;
+            count++;
+            totalAmount += item.getAmount();
+        }
+        log.info("批量扣费 {}/{} 笔成功，共 {} 金币", count, items.size(), totalAmount);
+        return success;
+    }
+
     /**
      * 提现（金币兑换现金）
      */
-    public synchronized CoinAccount withdraw(Long userId, Integer coinAmount) {
+    public CoinAccount withdraw(Long userId, Integer coinAmount) {
         if (coinAmount <= 0 || coinAmount % COINS_PER_YUAN != 0) {
             throw new BusinessException("提现金币数必须是" + COINS_PER_YUAN + "的整数倍");
         }
 
         CoinAccount account = getOrCreateAccount(userId);
-        if (account.getBalance() < coinAmount) {
-            throw new BusinessException("金币余额不足，当前余额: " + account.getBalance());
-        }
-
-        Integer beforeBalance = account.getBalance();
-        Integer afterBalance = beforeBalance - coinAmount;
+        Integer beforeBalance;
+        Integer afterBalance;
         Double cashAmount = coinAmount / (double) COINS_PER_YUAN;
+        synchronized (account) {
+            if (account.getBalance() < coinAmount) {
+                throw new BusinessException("金币余额不足，当前余额: " + account.getBalance());
+            }
 
-        account.setBalance(afterBalance);
-        account.setUpdateTime(LocalDateTime.now());
+            beforeBalance = account.getBalance();
+            afterBalance = beforeBalance - coinAmount;
+
+            account.setBalance(afterBalance);
+            account.setUpdateTime(LocalDateTime.now());
 
-        // 记录交易
-        String description = String.format("提现%.2f元", cashAmount);
-        addTransaction(userId, 4, -coinAmount, beforeBalance, afterBalance, null, description);
+            // 记录交易
+            String description = String.format("提现%.2f元", cashAmount);
+            addTransaction(userId, 4, -coinAmount, beforeBalance, afterBalance, null, description);
+        }
         log.info("用户 {} 提现 {} 金币({}元)，余额: {} -> {}", userId, coinAmount, cashAmount, beforeBalance, afterBalance);
 
         return account;
@@ -170,11 +251,17 @@ public class CoinService {
      * 获取用户交易记录
      */
     public List<CoinTransaction> getTransactions(Long userId, Integer limit) {
-        List<CoinTransaction> userTransactions = transactions.get(userId);
-        if (userTransactions == null) {
+        CoinAccount account = coinAccounts.get(userId);
+        if (account == null) {
             return new ArrayList<>();
         }
 
+        // 交易列表在账户锁内追加，读取时同样在锁内复制一份
+        List<CoinTransaction> userTransactions;
+        synchronized (account) {
+            userTransactions = new ArrayList<>(transactions.getOrDefault(userId, Collections.emptyList()));
+        }
+
         return userTransactions.stream()
                 .sorted((a, b) -> b.getCreateTime().compareTo(a.getCreateTime()))
                 .limit(limit != null ? limit : userTransactions.size())
@@ -182,7 +269,7 @@ public class CoinService {
     }
 
     /**
-     * 添加交易记录
+     * 添加交易记录，调用方需持有该账户的锁
      */
     private void addTransaction(Long userId, Integer type, Integer amount,
                                 Integer beforeBalance, Integer afterBalance,
@@ -208,4 +295,16 @@ public class CoinService {
         CoinAccount account = getAccount(userId);
         return account != null ? account.getBalance() : 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量记账条目（批量奖励、批量扣费）
+     */
+    @Data
+    @AllArgsConstructor
+    public static class LedgerItem {
+        private Long userId;
+        private Integer amount;
+        private Long relatedId;
+        private String description;
+    }
+}
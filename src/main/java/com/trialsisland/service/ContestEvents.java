@@ -0,0 +1,96 @@
+package com.trialsisland.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 比赛事件的类型和编码，每条事件首字节为类型，其后字段依次排列
+ */
+final class ContestEvents {
+
+    // 创建比赛：contestId, name, description, questionIds, duration, maxParticipants, 各时间节点
+    static final byte CREATED = 1;
+    // 报名：contestId, participationId, userId, username, time
+    static final byte JOINED = 2;
+    // 开始答题：contestId, userId, time
+    static final byte STARTED = 3;
+    // 答题：contestId, userId, questionIndex, correct, score, duration, time
+    static final byte ANSWERED = 4;
+    // 完成比赛（含自动交卷）：contestId, userId, time
+    static final byte FINISHED = 5;
+    // 结算：contestId, time, 获奖人数, (userId, coins)...
+    static final byte SETTLED = 6;
+    // 快照中的参赛数据整行：contestId, 行数据
+    static final byte ROW = 7;
+
+    private ContestEvents() {
+    }
+
+    /**
+     * 事件编码器
+     */
+    static final class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        Writer(byte type) {
+            putByte(type);
+        }
+
+        Writer putByte(int value) {
+            try {
+                out.writeByte(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Writer putInt(int value) {
+            try {
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Writer putLong(long value) {
+            try {
+                out.writeLong(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        Writer putString(String value) {
+            byte[] data = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            putInt(data.length);
+            try {
+                out.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+
+        DataOutputStream stream() {
+            return out;
+        }
+
+        byte[] toBytes() {
+            return bytes.toByteArray();
+        }
+    }
+
+    static String getString(ByteBuffer in) {
+        byte[] data = new byte[in.getInt()];
+        in.get(data);
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,203 @@
+package com.trialsisland.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 比赛排行榜（按子树大小增强的Treap，即顺序统计树）
+ * 排序规则：得分降序 -> 用时升序 -> 参赛记录ID升序（先报名者优先）
+ * 插入、查名次、取第K名均为 O(log n)，取前K名为 O(log n + K)
+ * 只收录已完成的参赛记录，其得分和用时在完成后不再变化；节点保存的是参赛数据存储中的行号
+ */
+class ContestLeaderboard {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root;
+    // 每次变更递增，推送线程据此判断排行榜是否有变化
+    private volatile long version;
+
+    /**
+     * 加入一条已完成的参赛记录
+     * @param slot 参赛数据存储中的行号
+     * @param id 参赛记录ID，得分用时相同时先报名者优先
+     */
+    void add(int slot, int score, int duration, long id) {
+        Node node = new Node(slot, score, duration, id);
+        lock.writeLock().lock();
+        try {
+            root = insert(root, node);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查询名次（从1开始），不在榜上返回0
+     */
+    int rankOf(int score, int duration, long id) {
+        lock.readLock().lock();
+        try {
+            int before = 0;
+            Node cur = root;
+            while (cur != null) {
+                int cmp = compare(score, duration, id, cur);
+                if (cmp == 0) {
+                    return before + size(cur.left) + 1;
+                }
+                if (cmp < 0) {
+                    cur = cur.left;
+                } else {
+                    before += size(cur.left) + 1;
+                    cur = cur.right;
+                }
+            }
+            return 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取前K名的行号
+     */
+    int[] top(int k) {
+        return range(0, k);
+    }
+
+    /**
+     * 按名次区间获取行号，offset从0开始
+     */
+    int[] range(int offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            return new int[0];
+        }
+        lock.readLock().lock();
+        try {
+            int[] result = new int[Math.max(0, Math.min(limit, size(root) - offset))];
+            collect(root, offset, result, new int[1]);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 当前版本号
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * 榜上人数
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size(root);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 中序遍历，跳过前offset个节点，填满out为止，count[0]为已填数量
+     */
+    private void collect(Node node, int offset, int[] out, int[] count) {
+        if (node == null || count[0] >= out.length) {
+            return;
+        }
+        int leftSize = size(node.left);
+        if (offset < leftSize) {
+            collect(node.left, offset, out, count);
+        }
+        if (count[0] >= out.length) {
+            return;
+        }
+        if (offset <= leftSize) {
+            out[count[0]++] = node.slot;
+        }
+        collect(node.right, Math.max(0, offset - leftSize - 1), out, count);
+    }
+
+    private static Node insert(Node node, Node fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (fresh.priority > node.priority) {
+            Node[] parts = split(node, fresh);
+            fresh.left = parts[0];
+            fresh.right = parts[1];
+            fresh.update();
+            return fresh;
+        }
+        if (compare(fresh.score, fresh.duration, fresh.id, node) < 0) {
+            node.left = insert(node.left, fresh);
+        } else {
+            node.right = insert(node.right, fresh);
+        }
+        node.update();
+        return node;
+    }
+
+    /**
+     * 按pivot拆分：左侧排在pivot之前，右侧排在pivot之后
+     */
+    private static Node[] split(Node node, Node pivot) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(pivot.score, pivot.duration, pivot.id, node) < 0) {
+            Node[] parts = split(node.left, pivot);
+            node.left = parts[1];
+            node.update();
+            return new Node[]{parts[0], node};
+        }
+        Node[] parts = split(node.right, pivot);
+        node.right = parts[0];
+        node.update();
+        return new Node[]{node, parts[1]};
+    }
+
+    /**
+     * 比较(score, duration, id)与节点的先后，负数表示排在节点之前
+     */
+    private static int compare(int score, int duration, long id, Node node) {
+        if (score != node.score) {
+            return score > node.score ? -1 : 1;
+        }
+        if (duration != node.duration) {
+            return duration < node.duration ? -1 : 1;
+        }
+        return Long.compare(id, node.id);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static final class Node {
+        final int score;
+        final int duration;
+        final long id;
+        final int priority;
+        final int slot;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(int slot, int score, int duration, long id) {
+            this.score = score;
+            this.duration = duration;
+            this.id = id;
+            this.priority = ThreadLocalRandom.current().nextInt();
+            this.slot = slot;
+        }
+
+        void update() {
+            size = 1 + ContestLeaderboard.size(left) + ContestLeaderboard.size(right);
+        }
+    }
+}
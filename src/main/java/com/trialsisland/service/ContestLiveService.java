@@ -0,0 +1,315 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.dto.RankingDeltaFrame;
+import com.trialsisland.dto.RankingItem;
+import com.trialsisland.dto.RankingPageResponse;
+import com.trialsisland.exception.BusinessException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 比赛排行榜实时推送服务（SSE）
+ * 每个推送周期每场比赛只计算一次差异，序列化一次，再广播给所有订阅者
+ * 推送通道随第一个订阅者创建，最后一个订阅者断开或比赛结束时移除，推送线程只遍历有人在看的比赛
+ * 订阅者加入和计算差异都持有通道锁：新订阅者的快照取自通道最近一次推送后的状态，之后的增量帧正好接在快照之后。
+ * 发送交给推送线程池，每个通道的待发帧按顺序排队、同一时间只有一个线程在发，慢连接只拖慢所在的通道
+ */
+@Slf4j
+@Service
+public class ContestLiveService {
+
+    private final ContestService contestService;
+    private final ObjectMapper objectMapper;
+    private final Executor sendExecutor;
+
+    // 推送的名次范围（前N名）
+    private static final int LIVE_TOP_N = 50;
+    // 连接超时时间（30分钟），客户端断开后由EventSource自动重连
+    private static final long EMITTER_TIMEOUT = 30 * 60 * 1000L;
+    // 推送线程数
+    private static final int SEND_THREADS = 4;
+
+    // 比赛ID -> 推送通道；通道关闭（closed）后从表中移除，不再接收订阅者
+    private final Map<Long, LiveChannel> channels = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ContestLiveService(ContestService contestService, ObjectMapper objectMapper) {
+        this(contestService, objectMapper, Executors.newFixedThreadPool(SEND_THREADS, r -> {
+            Thread thread = new Thread(r, "contest-live-sender");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ContestLiveService(ContestService contestService, ObjectMapper objectMapper, Executor sendExecutor) {
+        this.contestService = contestService;
+        this.objectMapper = objectMapper;
+        this.sendExecutor = sendExecutor;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (sendExecutor instanceof ExecutorService) {
+            ((ExecutorService) sendExecutor).shutdown();
+        }
+    }
+
+    /**
+     * 订阅比赛排行榜，先推送一帧全量快照；已结束的比赛推送快照和结束事件后关闭连接
+     */
+    public SseEmitter subscribe(Long contestId) {
+        if (contestService.getContest(contestId) == null) {
+            throw new BusinessException("比赛不存在");
+        }
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        emitter.onCompletion(() -> detach(contestId, emitter));
+        emitter.onTimeout(() -> detach(contestId, emitter));
+        emitter.onError(e -> detach(contestId, emitter));
+
+        if (contestService.isContestEnded(contestId)) {
+            sendFinal(contestId, emitter);
+            return emitter;
+        }
+        while (true) {
+            LiveChannel channel = channels.computeIfAbsent(contestId, LiveChannel::new);
+            synchronized (channel) {
+                // 通道可能刚因最后一个订阅者离开或比赛结束而关闭，重新获取
+                if (channel.closed) {
+                    continue;
+                }
+                if (channel.lastVersion < 0) {
+                    refresh(channel);
+                }
+                channel.subscribers.add(emitter);
+                RankingDeltaFrame frame = new RankingDeltaFrame(contestId, channel.seq, true, channel.lastTotal,
+                        new ArrayList<>(channel.lastItems), new ArrayList<>());
+                enqueue(channel, new Delivery(List.of(emitter), "snapshot", toJson(frame), false));
+            }
+            return emitter;
+        }
+    }
+
+    /**
+     * 已结束的比赛：在请求线程中直接推送最终排行榜和结束事件，然后关闭连接
+     */
+    private void sendFinal(Long contestId, SseEmitter emitter) {
+        RankingPageResponse page = contestService.getRankingPage(contestId, null, 0, LIVE_TOP_N);
+        RankingDeltaFrame frame = new RankingDeltaFrame(contestId, 0L, true, page.getTotal(), page.getItems(),
+                new ArrayList<>());
+        try {
+            emitter.send(SseEmitter.event().name("snapshot").data(toJson(frame), MediaType.APPLICATION_JSON));
+            emitter.send(SseEmitter.event().name("end").data(String.valueOf(contestId), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 移除订阅者，通道没有订阅者时关闭并移除
+     */
+    private void detach(Long contestId, SseEmitter emitter) {
+        LiveChannel channel = channels.get(contestId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            if (channel.subscribers.remove(emitter) && channel.subscribers.isEmpty()) {
+                channel.closed = true;
+                channels.remove(contestId, channel);
+            }
+        }
+    }
+
+    /**
+     * 比赛结束：最后一帧已入队，推送结束事件后关闭所有连接，调用方需持有通道锁
+     */
+    private void close(LiveChannel channel) {
+        channel.closed = true;
+        channels.remove(channel.contestId, channel);
+        List<SseEmitter> subscribers = new ArrayList<>(channel.subscribers);
+        enqueue(channel, new Delivery(subscribers, "end", String.valueOf(channel.contestId), true));
+        log.info("比赛 {} 已结束，关闭 {} 个排行榜推送连接", channel.contestId, subscribers.size());
+    }
+
+    /**
+     * 固定周期推送：排行榜有变化时计算与上一帧的差异，交给推送线程池广播
+     */
+    @Scheduled(fixedRate = 1000)
+    public void broadcast() {
+        for (LiveChannel channel : channels.values()) {
+            synchronized (channel) {
+                if (channel.closed || channel.subscribers.isEmpty()) {
+                    continue;
+                }
+                // 先读结束状态：结算完成后排行榜不再变化，本轮推送的就是最后一帧
+                boolean ended = contestService.isContestEnded(channel.contestId);
+                long version = contestService.getLeaderboardVersion(channel.contestId);
+                if (version != channel.lastVersion) {
+                    RankingPageResponse page = contestService.getRankingPage(channel.contestId, null, 0, LIVE_TOP_N);
+                    RankingDeltaFrame frame = diff(channel, page.getItems(), page.getTotal());
+                    channel.lastVersion = version;
+                    if (!frame.getChanges().isEmpty() || !frame.getRemoved().isEmpty()) {
+                        channel.seq = frame.getSeq();
+                        enqueue(channel, new Delivery(new ArrayList<>(channel.subscribers), "delta", toJson(frame),
+                                false));
+                    }
+                }
+                if (ended) {
+                    close(channel);
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前推送通道数（有订阅者的比赛数）
+     */
+    int channelCount() {
+        return channels.size();
+    }
+
+    /**
+     * 新建的通道以当前排行榜作为起点，调用方需持有通道锁
+     */
+    private void refresh(LiveChannel channel) {
+        long version = contestService.getLeaderboardVersion(channel.contestId);
+        RankingPageResponse page = contestService.getRankingPage(channel.contestId, null, 0, LIVE_TOP_N);
+        diff(channel, page.getItems(), page.getTotal());
+        channel.lastVersion = version;
+    }
+
+    /**
+     * 与上一帧比较，找出新上榜、名次变化和跌出前N名的条目，并把当前排行记为通道的最新状态
+     */
+    private RankingDeltaFrame diff(LiveChannel channel, List<RankingItem> top, int total) {
+        Map<Long, Integer> currentRanks = new HashMap<>();
+        List<RankingItem> changes = new ArrayList<>();
+        for (RankingItem item : top) {
+            currentRanks.put(item.getUserId(), item.getRank());
+            Integer previousRank = channel.lastRanks.get(item.getUserId());
+            if (previousRank == null || !previousRank.equals(item.getRank())) {
+                changes.add(item);
+            }
+        }
+
+        List<Long> removed = new ArrayList<>();
+        for (Long userId : channel.lastRanks.keySet()) {
+            if (!currentRanks.containsKey(userId)) {
+                removed.add(userId);
+            }
+        }
+
+        channel.lastRanks = currentRanks;
+        channel.lastItems = top;
+        channel.lastTotal = total;
+        return new RankingDeltaFrame(channel.contestId, channel.seq + 1, false, total, changes, removed);
+    }
+
+    private String toJson(RankingDeltaFrame frame) {
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("排行榜推送帧序列化失败，比赛ID: " + frame.getContestId(), e);
+        }
+    }
+
+    /**
+     * 待发帧入队，没有线程在发送时提交一个发送任务
+     */
+    private void enqueue(LiveChannel channel, Delivery delivery) {
+        channel.outbox.add(delivery);
+        if (channel.sending.compareAndSet(false, true)) {
+            try {
+                sendExecutor.execute(() -> drain(channel));
+            } catch (RejectedExecutionException e) {
+                channel.sending.set(false);
+                log.warn("排行榜推送任务被拒绝执行: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 按入队顺序发送通道的待发帧，发送失败的连接从通道移除
+     */
+    private void drain(LiveChannel channel) {
+        while (true) {
+            Delivery delivery;
+            while ((delivery = channel.outbox.poll()) != null) {
+                for (SseEmitter emitter : delivery.targets) {
+                    try {
+                        emitter.send(SseEmitter.event().name(delivery.name)
+                                .data(delivery.json, MediaType.APPLICATION_JSON));
+                        if (delivery.complete) {
+                            emitter.complete();
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        detach(channel.contestId, emitter);
+                    }
+                }
+            }
+            channel.sending.set(false);
+            // 释放标记后又有新帧入队，且没有其他线程接手时继续发送
+            if (channel.outbox.isEmpty() || !channel.sending.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 单场比赛的推送通道，除待发队列外的字段在通道锁内读写
+     */
+    private static final class LiveChannel {
+        final Long contestId;
+        final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        final Queue<Delivery> outbox = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean sending = new AtomicBoolean(false);
+        boolean closed;
+        long seq;
+        long lastVersion = -1;
+        // 最近一次推送后的前N名，新订阅者的快照取自这里
+        Map<Long, Integer> lastRanks = new HashMap<>();
+        List<RankingItem> lastItems = new ArrayList<>();
+        int lastTotal;
+
+        LiveChannel(Long contestId) {
+            this.contestId = contestId;
+        }
+    }
+
+    /**
+     * 一帧待发数据：事件名、JSON和接收者（入队时的订阅者），complete表示发送后关闭连接
+     */
+    private static final class Delivery {
+        final List<SseEmitter> targets;
+        final String name;
+        final String json;
+        final boolean complete;
+
+        Delivery(List<SseEmitter> targets, String name, String json, boolean complete) {
+            this.targets = targets;
+            this.name = name;
+            this.json = json;
+            this.complete = complete;
+        }
+    }
+}
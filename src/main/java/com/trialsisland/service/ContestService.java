@@ -1,21 +1,40 @@
 package com.trialsisland.service;
 
-import com.trialsisland.dto.QuestionResponse;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.trialsisland.config.ContestPrizeProperties;
+import com.trialsisland.config.ContestWalProperties;
+import com.trialsisland.dto.RankingItem;
+import com.trialsisland.dto.RankingPageResponse;
 import com.trialsisland.entity.Contest;
 import com.trialsisland.entity.ContestParticipation;
-import com.trialsisland.entity.Question;
-import com.trialsisland.entity.UserAnswer;
 import com.trialsisland.exception.BusinessException;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * 比赛服务类
@@ -28,47 +47,144 @@ public class ContestService {
     private final VipService vipService;
     private final CoinService coinService;
     private final QuestionService questionService;
+    private final ContestPrizeProperties prizeProperties;
+    private final ContestWalProperties walProperties;
 
     // 使用ConcurrentHashMap保证并发安全
     private final Map<Long, Contest> contests = new ConcurrentHashMap<>();
-    private final Map<Long, List<ContestParticipation>> participations = new ConcurrentHashMap<>();
-    private final Map<String, ContestParticipation> userContestMap = new ConcurrentHashMap<>();
+    // 每场比赛的奖池，奖励金额在读取和结算时由奖池和奖励档位推算，不随报名写回Contest
+    private final Map<Long, AtomicInteger> prizePools = new ConcurrentHashMap<>();
+    // 每场比赛的参赛数据（列式存储），ContestParticipation只在接口返回时生成
+    private final Map<Long, ParticipationStore> participationStores = new ConcurrentHashMap<>();
+    // (userId, contestId) -> 参赛数据行号，基本类型键，查询无分配
+    private final ParticipationIndex participationIndex = new ParticipationIndex();
+    // 按用户索引的参赛比赛ID；不同比赛由不同的报名线程写入，重放快照时按比赛ID写入，顺序不代表报名先后
+    private final Map<Long, Deque<Long>> userParticipations = new ConcurrentHashMap<>();
+    // 每场比赛一把锁：报名、完赛、排名只在同一场比赛内串行，不同比赛互不阻塞
+    private final Map<Long, Object> contestLocks = new ConcurrentHashMap<>();
+    // 创建比赛锁：创建事件写入日志和登记比赛在同一个锁内完成，快照取比赛列表时也持有该锁
+    private final Object creationLock = new Object();
+    // 每场比赛的题目ID -> 题目下标，用于校验题目归属和定位答题卡位置
+    private final Map<Long, Map<Long, Integer>> questionIndexes = new ConcurrentHashMap<>();
+    // 每场比赛的题目JSON，开赛时直接输出预先序列化好的字节
+    private final Map<Long, QuestionPayload> questionPayloads = new ConcurrentHashMap<>();
+    // 每场比赛的排行榜，完成比赛时增量插入
+    private final Map<Long, ContestLeaderboard> leaderboards = new ConcurrentHashMap<>();
+    // 比赛生命周期线程：状态切换、自动交卷、结算，不占用用户请求线程
+    private final ExecutorService lifecycleExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "contest-lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 每场比赛的报名队列，报名请求排队后按批次处理
+    private final Map<Long, AdmissionQueue> admissionQueues = new ConcurrentHashMap<>();
+    // 报名批处理线程池，同一场比赛同一时间只有一个线程在处理批次
+    private final ExecutorService admissionExecutor = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2), r -> {
+                Thread thread = new Thread(r, "contest-admission");
+                thread.setDaemon(true);
+                return thread;
+            });
+    // 事件日志快照线程：大比赛的快照可能要写很久，不能占用Spring默认的单线程调度器（实时排行榜推送等也在上面）
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "contest-wal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 是否有快照正在生成，避免快照比调度间隔还慢时任务堆积
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    // 时间轮（1秒刻度），负责所有比赛和答题的到期事件
+    private final TimingWheel timingWheel = new TimingWheel(1000, 512, lifecycleExecutor);
     private final AtomicLong contestIdGenerator = new AtomicLong(1);
     private final AtomicLong participationIdGenerator = new AtomicLong(1);
+    // 比赛事件日志，重启时重放恢复数据；未启用时为null
+    private MappedEventLog eventLog;
+    // 距上次快照追加的事件数
+    private final AtomicLong eventsSinceSnapshot = new AtomicLong();
 
     // 报名费用
     private static final int ENTRY_FEE = 100;
-    // 目标奖池金币
-    private static final int TARGET_PRIZE_POOL = 5000;
     // 平台抽成比例（20%）
     private static final double PLATFORM_COMMISSION = 0.2;
+    // 每位选手报名后进入奖池的金币
+    private static final int PRIZE_PER_ENTRY = ENTRY_FEE - (int) (ENTRY_FEE * PLATFORM_COMMISSION);
+    // 排行榜单页最大条数
+    private static final int MAX_RANKING_PAGE_SIZE = 100;
+    // 默认最大参赛人数
+    private static final int DEFAULT_MAX_PARTICIPANTS = 1000;
+    // 单个报名批次最多处理的请求数
+    private static final int MAX_ADMISSION_BATCH = 512;
 
     /**
-     * 初始化默认比赛
+     * 从事件日志恢复比赛数据，没有任何比赛时初始化默认比赛
      */
     @PostConstruct
-    private void initDefaultContests() {
-        createContest("编程基础挑战赛", "测试你的编程基础知识", Arrays.asList(1L, 2L, 3L, 4L, 5L), 30);
-        log.info("初始化默认比赛完成");
+    void initDefaultContests() {
+        if (walProperties.isEnabled()) {
+            recover();
+        }
+        if (contests.isEmpty()) {
+            createContest("编程基础挑战赛", "测试你的编程基础知识", Arrays.asList(1L, 2L, 3L, 4L, 5L), 30);
+            log.info("初始化默认比赛完成");
+        }
+    }
+
+    /**
+     * 重放事件日志重建比赛数据，再按当前时间重新登记比赛和答题的定时事件
+     */
+    private void recover() {
+        long begin = System.nanoTime();
+        MappedEventLog wal = new MappedEventLog(Paths.get(walProperties.getDir()),
+                walProperties.getSegmentSizeMb() << 20);
+        long events = wal.replay(this::applyEvent);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Contest contest : contests.values()) {
+            if (contest.getStatus() == 3) {
+                continue;
+            }
+            // 已过结束时间的比赛保持原状态，由结束时间的定时事件触发结算
+            int status = resolveStatus(contest, now);
+            if (status != 3) {
+                contest.setStatus(status);
+            }
+            scheduleLifecycle(contest, now);
+
+            ParticipationStore store = participationStores.get(contest.getId());
+            for (int slot = 0; slot < store.size(); slot++) {
+                if (store.status(slot) == 1) {
+                    scheduleAutoFinish(contest.getId(), store, slot, store.startTime(slot));
+                }
+            }
+        }
+
+        wal.open();
+        eventLog = wal;
+        eventsSinceSnapshot.set(events);
+        log.info("比赛事件日志恢复完成: {} 条事件, {} 场比赛, 耗时 {} ms",
+                events, contests.size(), (System.nanoTime() - begin) / 1_000_000);
     }
 
     /**
      * 创建比赛
      */
     public Contest createContest(String name, String description, List<Long> questionIds, Integer duration) {
+        return createContest(name, description, questionIds, duration, DEFAULT_MAX_PARTICIPANTS);
+    }
+
+    /**
+     * 创建比赛（指定最大参赛人数，大型比赛可设置到百万级）
+     */
+    public Contest createContest(String name, String description, List<Long> questionIds, Integer duration,
+                                 Integer maxParticipants) {
         Contest contest = new Contest();
         contest.setId(contestIdGenerator.getAndIncrement());
         contest.setName(name);
         contest.setDescription(description);
         contest.setEntryFee(ENTRY_FEE);
-        contest.setPrizePool(0);
-        contest.setFirstPrize(0);
-        contest.setSecondPrize(0);
-        contest.setThirdPrize(0);
         contest.setQuestionIds(questionIds);
         contest.setDuration(duration);
-        contest.setStatus(1); // 报名中
-        contest.setMaxParticipants(1000);
+        contest.setMaxParticipants(maxParticipants);
         contest.setCurrentParticipants(0);
         
         LocalDateTime now = LocalDateTime.now();
@@ -78,17 +194,114 @@ public class ContestService {
         contest.setEndTime(now.plusDays(7));
         contest.setCreateTime(now);
         contest.setUpdateTime(now);
+        contest.setStatus(resolveStatus(contest, now));
 
-        contests.put(contest.getId(), contest);
-        participations.put(contest.getId(), new ArrayList<>());
+        synchronized (creationLock) {
+            journal(createdEvent(contest));
+            registerContest(contest);
+        }
+        syncJournal();
+        scheduleLifecycle(contest, now);
         log.info("创建比赛: {}, ID: {}", name, contest.getId());
-        return contest;
+        return snapshot(contest);
     }
 
     /**
-     * 报名参加比赛
+     * 登记比赛及其附属结构（创建比赛和重放日志共用）
      */
-    public synchronized ContestParticipation joinContest(Long contestId, Long userId, String username) {
+    private void registerContest(Contest contest) {
+        List<Long> questionIds = contest.getQuestionIds();
+        contestLocks.put(contest.getId(), new Object());
+        questionIndexes.put(contest.getId(), buildQuestionIndex(questionIds));
+        prizePools.put(contest.getId(), new AtomicInteger());
+        participationStores.put(contest.getId(), new ParticipationStore(questionIds.size()));
+        admissionQueues.put(contest.getId(), new AdmissionQueue());
+        leaderboards.put(contest.getId(), new ContestLeaderboard());
+        contests.put(contest.getId(), contest);
+    }
+
+    private static Map<Long, Integer> buildQuestionIndex(List<Long> questionIds) {
+        Map<Long, Integer> index = new HashMap<>();
+        for (int i = 0; i < questionIds.size(); i++) {
+            index.putIfAbsent(questionIds.get(i), i);
+        }
+        return index;
+    }
+
+    /**
+     * 按时间计算比赛状态：0-未开始，1-报名中，2-进行中，3-已结束
+     */
+    private int resolveStatus(Contest contest, LocalDateTime now) {
+        if (!now.isBefore(contest.getEndTime())) {
+            return 3;
+        }
+        if (!now.isBefore(contest.getRegistrationStartTime()) && now.isBefore(contest.getRegistrationEndTime())) {
+            return 1;
+        }
+        if (!now.isBefore(contest.getStartTime()) && !now.isBefore(contest.getRegistrationEndTime())) {
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * 在时间轮上登记比赛的各个时间节点，到点重新计算状态
+     */
+    private void scheduleLifecycle(Contest contest, LocalDateTime now) {
+        Long contestId = contest.getId();
+        for (LocalDateTime time : Arrays.asList(contest.getRegistrationStartTime(), contest.getRegistrationEndTime(),
+                contest.getStartTime())) {
+            if (time.isAfter(now)) {
+                timingWheel.schedule(toEpochMilli(time), () -> onContestTimer(contestId));
+            }
+        }
+        timingWheel.schedule(toEpochMilli(contest.getEndTime()), () -> onContestTimer(contestId));
+    }
+
+    /**
+     * 比赛时间节点到期：切换状态，到达结束时间则结算
+     */
+    private void onContestTimer(Long contestId) {
+        Contest contest = contests.get(contestId);
+        int status;
+        synchronized (contestLock(contestId)) {
+            if (contest.getStatus() == 3) {
+                return;
+            }
+            status = resolveStatus(contest, LocalDateTime.now());
+            if (status != 3 && status != contest.getStatus()) {
+                contest.setStatus(status);
+                contest.setUpdateTime(LocalDateTime.now());
+                log.info("比赛 {} 状态变更为: {}", contest.getName(), status);
+            }
+        }
+        if (status == 3) {
+            settleContest(contestId);
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 报名参加比赛（等待所在批次处理完成）
+     */
+    public ContestParticipation joinContest(Long contestId, Long userId, String username) {
+        try {
+            return joinContestAsync(contestId, userId, username).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BusinessException) {
+                throw (BusinessException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 报名参加比赛：请求进入该比赛的报名队列，由报名线程按批次处理后异步完成
+     */
+    public CompletableFuture<ContestParticipation> joinContestAsync(Long contestId, Long userId, String username) {
         // 验证VIP身份
         if (!vipService.isValidVip(userId)) {
             throw new BusinessException("只有VIP会员才能参加比赛，请先购买VIP会员");
@@ -99,115 +312,241 @@ public class ContestService {
             throw new BusinessException("比赛不存在");
         }
 
-        if (contest.getStatus() != 1) {
-            throw new BusinessException("比赛未在报名期间");
+        JoinRequest request = new JoinRequest(userId, username);
+        AdmissionQueue queue = admissionQueues.get(contestId);
+        queue.requests.add(request);
+        if (queue.draining.compareAndSet(false, true)) {
+            admissionExecutor.execute(() -> drainAdmissions(contest, queue));
         }
+        return request.future;
+    }
+
+    /**
+     * 持续处理报名队列直到队列为空
+     */
+    private void drainAdmissions(Contest contest, AdmissionQueue queue) {
+        while (true) {
+            List<JoinRequest> batch = new ArrayList<>();
+            JoinRequest request;
+            while (batch.size() < MAX_ADMISSION_BATCH && (request = queue.requests.poll()) != null) {
+                batch.add(request);
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    admitBatch(contest, batch);
+                } catch (RuntimeException e) {
+                    log.error("比赛 {} 报名批次处理失败", contest.getId(), e);
+                    for (JoinRequest failed : batch) {
+                        failed.future.completeExceptionally(e);
+                    }
+                }
+                continue;
+            }
+
+            queue.draining.set(false);
+            // 释放处理权后再检查一次，避免与刚入队的请求竞争导致请求滞留
+            if (queue.requests.isEmpty() || !queue.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 处理一个报名批次：持有比赛锁逐个校验，整批一次扣费，计数和奖池只更新一次
+     */
+    private void admitBatch(Contest contest, List<JoinRequest> batch) {
+        Long contestId = contest.getId();
+        ParticipationStore store = participationStores.get(contestId);
+        List<JoinRequest> admitted = new ArrayList<>();
+
+        synchronized (contestLock(contestId)) {
+            List<JoinRequest> candidates = new ArrayList<>(batch.size());
+            Set<Long> batchUsers = new HashSet<>();
+            for (JoinRequest request : batch) {
+                if (contest.getStatus() != 1) {
+                    request.fail("比赛未在报名期间");
+                } else if (participationIndex.get(request.userId, contestId) >= 0 || !batchUsers.add(request.userId)) {
+                    // 检查是否已报名（包括同一批次内的重复请求）
+                    request.fail("您已经报名过此比赛");
+                } else {
+                    candidates.add(request);
+                }
+            }
+
+            // 按入队顺序占用剩余名额，扣费失败空出的名额顺延给后面的请求，保证人数上限准确
+            int remaining = contest.getMaxParticipants() - contest.getCurrentParticipants();
+            int next = 0;
+            while (admitted.size() < remaining && next < candidates.size()) {
+                int take = Math.min(remaining - admitted.size(), candidates.size() - next);
+                List<JoinRequest> round = candidates.subList(next, next + take);
+                next += take;
+
+                List<CoinService.LedgerItem> fees = new ArrayList<>(round.size());
+                for (JoinRequest request : round) {
+                    fees.add(new CoinService.LedgerItem(request.userId, ENTRY_FEE, contestId,
+                            "报名比赛: " + contest.getName()));
+                }
+                boolean[] paid = coinService.spendBatch(fees);
+                for (int i = 0; i < round.size(); i++) {
+                    JoinRequest request = round.get(i);
+                    if (paid[i]) {
+                        admitted.add(request);
+                    } else {
+                        request.fail("金币余额不足，当前余额: " + coinService.getBalance(request.userId));
+                    }
+                }
+            }
+            for (int i = next; i < candidates.size(); i++) {
+                candidates.get(i).fail("比赛人数已满");
+            }
+
+            // 创建参赛记录（状态为0-已报名）；中途失败时已建立记录的照常报名成功，其余的退还报名费
+            long now = System.currentTimeMillis();
+            int recorded = 0;
+            try {
+                for (JoinRequest request : admitted) {
+                    long participationId = participationIdGenerator.getAndIncrement();
+                    journal(new ContestEvents.Writer(ContestEvents.JOINED).putLong(contestId).putLong(participationId)
+                            .putLong(request.userId).putString(request.username).putLong(now));
+                    request.slot = store.append(participationId, request.userId, request.username, now);
+                    participationIndex.putIfAbsent(request.userId, contestId, request.slot);
+                    userParticipations.computeIfAbsent(request.userId, id -> new ConcurrentLinkedDeque<>())
+                            .addFirst(contestId);
+                    recorded++;
+                }
+            } catch (RuntimeException e) {
+                log.error("比赛 {} 创建参赛记录失败，退还 {} 人的报名费", contestId, admitted.size() - recorded, e);
+                refundEntryFees(contest, admitted.subList(recorded, admitted.size()));
+                admitted = new ArrayList<>(admitted.subList(0, recorded));
+            }
 
-        // 检查是否已报名
-        String key = userId + "_" + contestId;
-        if (userContestMap.containsKey(key)) {
-            throw new BusinessException("您已经报名过此比赛");
+            if (!admitted.isEmpty()) {
+                // 人数和奖池一起更新，读取方持有比赛锁时看到的两者一致
+                contest.setCurrentParticipants(contest.getCurrentParticipants() + admitted.size());
+                prizePools.get(contestId).addAndGet(PRIZE_PER_ENTRY * admitted.size());
+                contest.setUpdateTime(LocalDateTime.now());
+            }
         }
 
-        // 检查人数限制
-        if (contest.getCurrentParticipants() >= contest.getMaxParticipants()) {
-            throw new BusinessException("比赛人数已满");
+        // 整批报名事件一次落盘后再通知调用方；落盘失败时内存中的报名已生效，仍通知报名成功
+        try {
+            syncJournal();
+        } catch (RuntimeException e) {
+            log.error("比赛 {} 报名事件落盘失败", contestId, e);
         }
 
-        // 扣除报名费
-        coinService.spend(userId, ENTRY_FEE, contestId, "报名比赛: " + contest.getName());
+        for (JoinRequest request : admitted) {
+            request.future.complete(toView(contestId, store, request.slot));
+        }
+        log.info("比赛 {} 处理报名批次: {} 个请求，{} 人报名成功，当前奖池: {} 金币",
+                contest.getName(), batch.size(), admitted.size(), prizePools.get(contestId).get());
+    }
 
-        // 更新奖池
-        int platformFee = (int) (ENTRY_FEE * PLATFORM_COMMISSION);
-        int prizeIncrease = ENTRY_FEE - platformFee;
-        contest.setPrizePool(contest.getPrizePool() + prizeIncrease);
-        contest.setCurrentParticipants(contest.getCurrentParticipants() + 1);
-        contest.setUpdateTime(LocalDateTime.now());
+    /**
+     * 已扣费但未能建立参赛记录的请求：退还报名费并通知报名失败
+     */
+    private void refundEntryFees(Contest contest, List<JoinRequest> requests) {
+        List<CoinService.LedgerItem> refunds = new ArrayList<>(requests.size());
+        for (JoinRequest request : requests) {
+            refunds.add(new CoinService.LedgerItem(request.userId, ENTRY_FEE, contest.getId(),
+                    "报名失败退还报名费: " + contest.getName()));
+        }
+        coinService.rewardBatch(refunds);
+        for (JoinRequest request : requests) {
+            request.fail("报名失败，报名费已退还，请稍后重试");
+        }
+    }
 
-        // 创建参赛记录
-        ContestParticipation participation = new ContestParticipation();
-        participation.setId(participationIdGenerator.getAndIncrement());
-        participation.setContestId(contestId);
-        participation.setUserId(userId);
-        participation.setUsername(username);
-        participation.setTotalScore(0);
-        participation.setCorrectCount(0);
-        participation.setTotalQuestions(contest.getQuestionIds().size());
-        participation.setTotalDuration(0);
-        participation.setRank(0);
-        participation.setRewardCoins(0);
-        participation.setStatus(0); // 已报名
-        participation.setRegistrationTime(LocalDateTime.now());
-        participation.setCreateTime(LocalDateTime.now());
-        participation.setUpdateTime(LocalDateTime.now());
-
-        participations.get(contestId).add(participation);
-        userContestMap.put(key, participation);
-
-        // 更新奖励金额
-        updatePrizes(contest);
-
-        log.info("用户 {} 报名比赛 {}, 当前奖池: {} 金币", userId, contest.getName(), contest.getPrizePool());
-        return participation;
+    /**
+     * 按奖励档位计算前若干名的奖励金额，下标i对应第i+1名
+     * 百分比档位按报名人数折算名次数，每档奖励在该档的名次间平分；
+     * 列表展示和结算都以报名人数为准，展示的金额即按当前奖池结算时实发的金额
+     */
+    private int[] computePrizes(int prizePool, int entrants, int maxRanks) {
+        List<Integer> amounts = new ArrayList<>();
+        for (ContestPrizeProperties.Tier tier : prizeProperties.getTiers()) {
+            int ranks = tier.getTop() != null ? tier.getTop()
+                    : (int) Math.ceil(entrants * tier.getPercent() / 100.0);
+            if (ranks <= 0) {
+                continue;
+            }
+            int amount = (int) (prizePool * tier.getShare() / ranks);
+            for (int i = 0; i < ranks && amounts.size() < maxRanks; i++) {
+                amounts.add(amount);
+            }
+        }
+        int[] prizes = new int[amounts.size()];
+        for (int i = 0; i < prizes.length; i++) {
+            prizes[i] = amounts.get(i);
+        }
+        return prizes;
     }
 
     /**
-     * 更新奖励金额（动态调整）
+     * 返回给调用方的比赛副本：在比赛锁内同时读取报名人数和奖池，
+     * 与报名批次的更新互斥，前三名奖励由同一组人数和奖池推算
      */
-    private void updatePrizes(Contest contest) {
-        int prizePool = contest.getPrizePool();
-        
-        // 如果奖池达到目标，按比例分配
-        if (prizePool >= TARGET_PRIZE_POOL) {
-            contest.setFirstPrize((int) (prizePool * 0.5));  // 50%给第一名
-            contest.setSecondPrize((int) (prizePool * 0.3)); // 30%给第二名
-            contest.setThirdPrize((int) (prizePool * 0.2));  // 20%给第三名
-        } else {
-            // 奖池不足目标时，降低奖励但确保有奖
-            double ratio = prizePool / (double) TARGET_PRIZE_POOL;
-            contest.setFirstPrize(Math.max((int) (TARGET_PRIZE_POOL * 0.5 * ratio), prizePool / 2));
-            contest.setSecondPrize(Math.max((int) (TARGET_PRIZE_POOL * 0.3 * ratio), prizePool / 3));
-            contest.setThirdPrize(Math.max((int) (TARGET_PRIZE_POOL * 0.2 * ratio), prizePool / 6));
+    private Contest snapshot(Contest contest) {
+        Contest view = new Contest();
+        int prizePool;
+        synchronized (contestLock(contest.getId())) {
+            BeanUtils.copyProperties(contest, view);
+            prizePool = prizePools.get(contest.getId()).get();
         }
+        int[] prizes = computePrizes(prizePool, view.getCurrentParticipants(), 3);
+        view.setPrizePool(prizePool);
+        view.setFirstPrize(prizes.length > 0 ? prizes[0] : 0);
+        view.setSecondPrize(prizes.length > 1 ? prizes[1] : 0);
+        view.setThirdPrize(prizes.length > 2 ? prizes[2] : 0);
+        return view;
     }
 
     /**
      * 提交比赛答案
      */
-    public synchronized boolean submitAnswer(Long contestId, Long userId, Long questionId, 
-                                              String answer, Long duration) {
-        String key = userId + "_" + contestId;
-        ContestParticipation participation = userContestMap.get(key);
+    public boolean submitAnswer(Long contestId, Long userId, Long questionId, 
+                                String answer, Long duration) {
+        int slot = participationIndex.get(userId, contestId);
         
-        if (participation == null) {
+        if (slot < 0) {
             throw new BusinessException("您未报名此比赛");
         }
 
-        if (participation.getStatus() == 2) {
-            throw new BusinessException("您已经完成了此比赛");
+        Integer questionIndex = questionIndexes.get(contestId).get(questionId);
+        if (questionIndex == null) {
+            throw new BusinessException("该题目不属于此比赛");
         }
 
-        // 标记为进行中
-        if (participation.getStatus() == 0) {
-            participation.setStatus(1);
-            participation.setStartTime(LocalDateTime.now());
-        }
+        // 验证答案（判题不涉及共享状态，放在锁外）；题目分值和判题器取自同一个题库条目
+        QuestionService.QuestionEntry question = questionService.getEntry(questionId);
+        boolean isCorrect = question.matcher.matches(answer);
+        int score = question.entity.getScore();
+        int answerDuration = duration != null ? duration.intValue() : 0;
+        ParticipationStore store = participationStores.get(contestId);
 
-        // 验证答案
-        Question question = questionService.getQuestionEntity(questionId);
-        if (question == null) {
-            throw new BusinessException("题目不存在");
-        }
+        // 答题只锁当前参赛记录所在的行锁分段，不同用户可并行提交
+        synchronized (store.rowLock(slot)) {
+            checkNotEnded(contestId);
+            if (store.status(slot) == 2) {
+                throw new BusinessException("您已经完成了此比赛");
+            }
+            if (store.isAnswered(slot, questionIndex)) {
+                throw new BusinessException("该题目已作答，不能重复提交");
+            }
 
-        boolean isCorrect = question.getAnswer().trim().equalsIgnoreCase(answer.trim());
-        
-        if (isCorrect) {
-            participation.setCorrectCount(participation.getCorrectCount() + 1);
-            participation.setTotalScore(participation.getTotalScore() + question.getScore());
-        }
+            // 标记为进行中
+            if (store.status(slot) == 0) {
+                markStarted(contestId, store, slot);
+            }
 
-        participation.setTotalDuration(participation.getTotalDuration() + (duration != null ? duration.intValue() : 0));
-        participation.setUpdateTime(LocalDateTime.now());
+            long now = System.currentTimeMillis();
+            journal(new ContestEvents.Writer(ContestEvents.ANSWERED).putLong(contestId).putLong(userId)
+                    .putInt(questionIndex).putByte(isCorrect ? 1 : 0).putInt(score)
+                    .putInt(answerDuration).putLong(now));
+            store.recordAnswer(slot, questionIndex, isCorrect, score, answerDuration, now);
+        }
+        syncJournal();
+        questionService.recordAttempt(userId, questionId, isCorrect, answerDuration);
 
         log.info("用户 {} 在比赛 {} 中回答题目 {}: {}", userId, contestId, questionId, isCorrect ? "正确" : "错误");
         return isCorrect;
@@ -216,153 +555,715 @@ public class ContestService {
     /**
      * 完成比赛
      */
-    public synchronized ContestParticipation finishContest(Long contestId, Long userId) {
-        String key = userId + "_" + contestId;
-        ContestParticipation participation = userContestMap.get(key);
+    public ContestParticipation finishContest(Long contestId, Long userId) {
+        int slot = participationIndex.get(userId, contestId);
         
-        if (participation == null) {
+        if (slot < 0) {
             throw new BusinessException("您未报名此比赛");
         }
 
-        if (participation.getStatus() == 2) {
-            throw new BusinessException("您已经完成了此比赛");
+        ParticipationStore store = participationStores.get(contestId);
+        synchronized (contestLock(contestId)) {
+            checkNotEnded(contestId);
+            if (!finishParticipation(contestId, store, slot)) {
+                throw new BusinessException("您已经完成了此比赛");
+            }
         }
+        syncJournal();
 
-        participation.setStatus(2); // 已完成
-        participation.setFinishTime(LocalDateTime.now());
-        participation.setUpdateTime(LocalDateTime.now());
-
-        // 计算排名
-        calculateRankings(contestId);
-
+        ContestParticipation participation = toView(contestId, store, slot);
         log.info("用户 {} 完成比赛 {}, 得分: {}, 排名: {}", 
                 userId, contestId, participation.getTotalScore(), participation.getRank());
         return participation;
     }
 
     /**
-     * 计算排名并发放奖励
+     * 交卷并加入排行榜，奖励在比赛结束后统一结算
+     * 调用方需持有该比赛的锁；加锁顺序为先比赛锁再参赛记录锁，与答题路径不会形成环
+     * @return 已经交过卷返回false
+     */
+    private boolean finishParticipation(Long contestId, ParticipationStore store, int slot) {
+        synchronized (store.rowLock(slot)) {
+            if (store.status(slot) == 2) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            journal(new ContestEvents.Writer(ContestEvents.FINISHED).putLong(contestId)
+                    .putLong(store.userId(slot)).putLong(now));
+            store.markFinished(slot, now);
+        }
+
+        getLeaderboard(contestId).add(slot, store.score(slot), store.duration(slot), store.id(slot));
+        return true;
+    }
+
+    /**
+     * 标记开始答题，并在时间轮上登记答题截止时间，调用方需持有该行的行锁
      */
-    private void calculateRankings(Long contestId) {
-        List<ContestParticipation> finishedList = participations.get(contestId).stream()
-                .filter(p -> p.getStatus() == 2)
-                .sorted((a, b) -> {
-                    // 先按得分降序
-                    int scoreCompare = b.getTotalScore().compareTo(a.getTotalScore());
-                    if (scoreCompare != 0) return scoreCompare;
-                    // 得分相同按用时升序
-                    return a.getTotalDuration().compareTo(b.getTotalDuration());
-                })
-                .collect(Collectors.toList());
+    private void markStarted(Long contestId, ParticipationStore store, int slot) {
+        long now = System.currentTimeMillis();
+        journal(new ContestEvents.Writer(ContestEvents.STARTED).putLong(contestId)
+                .putLong(store.userId(slot)).putLong(now));
+        store.markStarted(slot, now);
+        scheduleAutoFinish(contestId, store, slot, now);
+    }
 
+    /**
+     * 在时间轮上登记答题截止时间
+     */
+    private void scheduleAutoFinish(Long contestId, ParticipationStore store, int slot, long startTime) {
+        long deadline = startTime + contests.get(contestId).getDuration() * 60_000L;
+        timingWheel.schedule(deadline, () -> autoFinish(contestId, store, slot));
+    }
+
+    /**
+     * 答题时间用完自动交卷
+     */
+    private void autoFinish(Long contestId, ParticipationStore store, int slot) {
+        synchronized (contestLock(contestId)) {
+            if (contests.get(contestId).getStatus() == 3) {
+                return;
+            }
+            if (finishParticipation(contestId, store, slot)) {
+                log.info("用户 {} 比赛 {} 答题时间已到，自动交卷，得分: {}",
+                        store.userId(slot), contestId, store.score(slot));
+            }
+        }
+    }
+
+    /**
+     * 获取比赛锁
+     */
+    private Object contestLock(Long contestId) {
+        Object lock = contestLocks.get(contestId);
+        if (lock == null) {
+            throw new BusinessException("比赛不存在");
+        }
+        return lock;
+    }
+
+    /**
+     * 结算比赛：冻结排名，一次性计算奖金并批量入账
+     * 每场比赛只结算一次
+     */
+    public void settleContest(Long contestId) {
         Contest contest = contests.get(contestId);
-        
-        for (int i = 0; i < finishedList.size(); i++) {
-            ContestParticipation p = finishedList.get(i);
-            p.setRank(i + 1);
+        if (contest == null) {
+            throw new BusinessException("比赛不存在");
+        }
 
-            // 发放奖励
-            if (i == 0 && contest.getFirstPrize() > 0) {
-                p.setRewardCoins(contest.getFirstPrize());
-                coinService.reward(p.getUserId(), contest.getFirstPrize(), contestId, 
-                        "比赛第1名奖励: " + contest.getName());
-            } else if (i == 1 && contest.getSecondPrize() > 0) {
-                p.setRewardCoins(contest.getSecondPrize());
-                coinService.reward(p.getUserId(), contest.getSecondPrize(), contestId, 
-                        "比赛第2名奖励: " + contest.getName());
-            } else if (i == 2 && contest.getThirdPrize() > 0) {
-                p.setRewardCoins(contest.getThirdPrize());
-                coinService.reward(p.getUserId(), contest.getThirdPrize(), contestId, 
-                        "比赛第3名奖励: " + contest.getName());
+        List<CoinService.LedgerItem> rewards = new ArrayList<>();
+        synchronized (contestLock(contestId)) {
+            if (contest.getStatus() == 3) {
+                return;
             }
+            contest.setStatus(3); // 已结束
+            contest.setUpdateTime(LocalDateTime.now());
+
+            // 仍在答题中的选手按当前成绩交卷
+            ParticipationStore store = participationStores.get(contestId);
+            int size = store.size();
+            for (int slot = 0; slot < size; slot++) {
+                if (store.status(slot) == 1) {
+                    finishParticipation(contestId, store, slot);
+                }
+            }
+
+            // 按最终奖池和报名人数计算各名次奖励，与比赛列表展示的奖励同一口径；
+            // 完赛人数不足时多出的名次无人领取
+            ContestLeaderboard leaderboard = getLeaderboard(contestId);
+            int[] prizes = computePrizes(prizePools.get(contestId).get(), contest.getCurrentParticipants(),
+                    Integer.MAX_VALUE);
+            int[] winners = leaderboard.top(prizes.length);
+            for (int i = 0; i < winners.length; i++) {
+                if (prizes[i] > 0) {
+                    synchronized (store.rowLock(winners[i])) {
+                        store.setRewardCoins(winners[i], prizes[i]);
+                    }
+                    rewards.add(new CoinService.LedgerItem(store.userId(winners[i]), prizes[i], contestId,
+                            "比赛第" + (i + 1) + "名奖励: " + contest.getName()));
+                }
+            }
+
+            ContestEvents.Writer settled = new ContestEvents.Writer(ContestEvents.SETTLED).putLong(contestId)
+                    .putLong(toEpochMilli(contest.getUpdateTime())).putInt(rewards.size());
+            for (CoinService.LedgerItem reward : rewards) {
+                settled.putLong(reward.getUserId()).putInt(reward.getAmount());
+            }
+            journal(settled);
         }
+
+        syncJournal();
+        coinService.rewardBatch(rewards);
+        log.info("比赛 {} 结算完成，获奖人数: {}", contest.getName(), rewards.size());
+    }
+
+    /**
+     * 已结束的比赛不再接受答题和交卷
+     */
+    private void checkNotEnded(Long contestId) {
+        Contest contest = contests.get(contestId);
+        if (contest != null && contest.getStatus() == 3) {
+            throw new BusinessException("比赛已结束");
+        }
+    }
+
+    @PreDestroy
+    void shutdownLifecycle() {
+        timingWheel.stop();
+        lifecycleExecutor.shutdown();
+        admissionExecutor.shutdown();
+        compactionExecutor.shutdown();
+        if (eventLog != null) {
+            eventLog.close();
+        }
+    }
+
+    /**
+     * 追加一条比赛事件（只写入映射内存，落盘见 {@link #syncJournal()}）
+     */
+    private void journal(ContestEvents.Writer event) {
+        if (eventLog != null) {
+            eventLog.append(event.toBytes());
+            eventsSinceSnapshot.incrementAndGet();
+        }
+    }
+
+    /**
+     * 等待已追加的事件落盘，需在释放比赛锁和行锁之后调用，多个请求共用一次刷盘
+     */
+    private void syncJournal() {
+        if (eventLog != null) {
+            eventLog.awaitDurable(eventLog.position());
+        }
+    }
+
+    private ContestEvents.Writer createdEvent(Contest contest) {
+        ContestEvents.Writer event = new ContestEvents.Writer(ContestEvents.CREATED).putLong(contest.getId())
+                .putString(contest.getName()).putString(contest.getDescription())
+                .putInt(contest.getQuestionIds().size());
+        for (Long questionId : contest.getQuestionIds()) {
+            event.putLong(questionId);
+        }
+        return event.putInt(contest.getDuration()).putInt(contest.getMaxParticipants())
+                .putLong(toEpochMilli(contest.getRegistrationStartTime()))
+                .putLong(toEpochMilli(contest.getRegistrationEndTime()))
+                .putLong(toEpochMilli(contest.getStartTime()))
+                .putLong(toEpochMilli(contest.getEndTime()))
+                .putLong(toEpochMilli(contest.getCreateTime()));
+    }
+
+    /**
+     * 事件日志达到阈值时生成快照，之前的段文件随之删除，限制重启时的重放量
+     * 调度线程只负责检查阈值，快照在单独的线程上生成
+     */
+    @Scheduled(fixedDelay = 60_000)
+    public void compactEventLog() {
+        if (eventLog == null || eventsSinceSnapshot.get() < walProperties.getSnapshotEvents()
+                || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        compactionExecutor.execute(() -> {
+            try {
+                compactNow();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    /**
+     * 立即生成快照
+     */
+    void compactNow() {
+        long begin = System.nanoTime();
+        eventsSinceSnapshot.set(0);
+        eventLog.snapshot(this::writeSnapshot);
+        log.info("比赛事件日志快照完成，耗时 {} ms", (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    /**
+     * 写出全部比赛的当前状态：每场比赛一条创建事件 + 每位选手一行数据 + 已结算标记
+     * 调用时日志已切换到新段。每个写操作都在同一把锁内先写事件再改内存（创建比赛为创建锁，
+     * 报名、交卷、结算为比赛锁，答题为行锁），这里读取每份状态时持有同一把锁，
+     * 因此旧段中的事件必然已体现在读到的状态里，之后的事件都在新段中，重放时再应用一次
+     */
+    private void writeSnapshot(Consumer<byte[]> out) {
+        List<Long> contestIds;
+        synchronized (creationLock) {
+            contestIds = new ArrayList<>(contests.keySet());
+        }
+        Collections.sort(contestIds);
+        for (Long contestId : contestIds) {
+            Contest contest = contests.get(contestId);
+            ParticipationStore store = participationStores.get(contestId);
+            // 持有比赛锁期间报名、交卷、结算暂停，答题只在读到对应行时等待行锁
+            synchronized (contestLock(contestId)) {
+                out.accept(createdEvent(contest).toBytes());
+
+                int size = store.size();
+                for (int slot = 0; slot < size; slot++) {
+                    ContestEvents.Writer row = new ContestEvents.Writer(ContestEvents.ROW).putLong(contestId);
+                    synchronized (store.rowLock(slot)) {
+                        try {
+                            store.writeRow(slot, row.stream());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    out.accept(row.toBytes());
+                }
+
+                // 获奖金额已包含在各行数据中，结算标记只恢复比赛状态
+                if (contest.getStatus() == 3) {
+                    out.accept(new ContestEvents.Writer(ContestEvents.SETTLED).putLong(contestId)
+                            .putLong(toEpochMilli(contest.getUpdateTime())).putInt(0).toBytes());
+                }
+            }
+        }
+    }
+
+    /**
+     * 重放一条事件；快照之后的段可能包含快照中已体现的事件，因此每种事件的应用都是幂等的
+     */
+    private void applyEvent(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case ContestEvents.CREATED:
+                applyCreated(in);
+                break;
+            case ContestEvents.JOINED:
+                applyJoined(in);
+                break;
+            case ContestEvents.STARTED:
+                applyStarted(in);
+                break;
+            case ContestEvents.ANSWERED:
+                applyAnswered(in);
+                break;
+            case ContestEvents.FINISHED:
+                applyFinished(in);
+                break;
+            case ContestEvents.SETTLED:
+                applySettled(in);
+                break;
+            case ContestEvents.ROW:
+                applyRow(in);
+                break;
+            default:
+                log.warn("未知的比赛事件类型: {}", type);
+        }
+    }
+
+    private void applyCreated(ByteBuffer in) {
+        Contest contest = new Contest();
+        contest.setId(in.getLong());
+        contest.setName(ContestEvents.getString(in));
+        contest.setDescription(ContestEvents.getString(in));
+        int questionCount = in.getInt();
+        List<Long> questionIds = new ArrayList<>(questionCount);
+        for (int i = 0; i < questionCount; i++) {
+            questionIds.add(in.getLong());
+        }
+        contest.setQuestionIds(questionIds);
+        contest.setDuration(in.getInt());
+        contest.setMaxParticipants(in.getInt());
+        contest.setRegistrationStartTime(toDateTime(in.getLong()));
+        contest.setRegistrationEndTime(toDateTime(in.getLong()));
+        contest.setStartTime(toDateTime(in.getLong()));
+        contest.setEndTime(toDateTime(in.getLong()));
+        contest.setCreateTime(toDateTime(in.getLong()));
+        contest.setUpdateTime(contest.getCreateTime());
+        contest.setEntryFee(ENTRY_FEE);
+        contest.setCurrentParticipants(0);
+        contest.setStatus(0);
+        if (contests.containsKey(contest.getId())) {
+            return;
+        }
+        registerContest(contest);
+        bumpGenerator(contestIdGenerator, contest.getId());
+    }
+
+    private void applyJoined(ByteBuffer in) {
+        Long contestId = in.getLong();
+        long participationId = in.getLong();
+        long userId = in.getLong();
+        String username = ContestEvents.getString(in);
+        long time = in.getLong();
+        ParticipationStore store = participationStores.get(contestId);
+        if (store == null || participationIndex.get(userId, contestId) >= 0) {
+            return;
+        }
+        indexReplayedRow(contestId, userId, store.append(participationId, userId, username, time));
+        bumpGenerator(participationIdGenerator, participationId);
+    }
+
+    private void applyRow(ByteBuffer in) {
+        Long contestId = in.getLong();
+        ParticipationStore store = participationStores.get(contestId);
+        // 行数据以participationId、userId开头，先检查是否已恢复过
+        long userId = in.getLong(in.position() + 8);
+        if (store == null || participationIndex.get(userId, contestId) >= 0) {
+            return;
+        }
+        int slot = store.readRow(in);
+        indexReplayedRow(contestId, userId, slot);
+        bumpGenerator(participationIdGenerator, store.id(slot));
+        if (store.status(slot) == 2) {
+            getLeaderboard(contestId).add(slot, store.score(slot), store.duration(slot), store.id(slot));
+        }
+    }
+
+    /**
+     * 登记重放出的参赛记录，并累计报名人数和奖池
+     */
+    private void indexReplayedRow(Long contestId, long userId, int slot) {
+        participationIndex.putIfAbsent(userId, contestId, slot);
+        userParticipations.computeIfAbsent(userId, id -> new ConcurrentLinkedDeque<>()).addFirst(contestId);
+        prizePools.get(contestId).addAndGet(PRIZE_PER_ENTRY);
+        Contest contest = contests.get(contestId);
+        contest.setCurrentParticipants(contest.getCurrentParticipants() + 1);
+    }
+
+    private void applyStarted(ByteBuffer in) {
+        Long contestId = in.getLong();
+        int slot = participationIndex.get(in.getLong(), contestId);
+        long time = in.getLong();
+        if (slot >= 0) {
+            ParticipationStore store = participationStores.get(contestId);
+            if (store.status(slot) == 0) {
+                store.markStarted(slot, time);
+            }
+        }
+    }
+
+    private void applyAnswered(ByteBuffer in) {
+        Long contestId = in.getLong();
+        int slot = participationIndex.get(in.getLong(), contestId);
+        int questionIndex = in.getInt();
+        boolean isCorrect = in.get() == 1;
+        int score = in.getInt();
+        int duration = in.getInt();
+        long time = in.getLong();
+        if (slot < 0) {
+            return;
+        }
+        ParticipationStore store = participationStores.get(contestId);
+        if (store.status(slot) == 2 || store.isAnswered(slot, questionIndex)) {
+            return;
+        }
+        if (store.status(slot) == 0) {
+            store.markStarted(slot, time);
+        }
+        store.recordAnswer(slot, questionIndex, isCorrect, score, duration, time);
+    }
+
+    private void applyFinished(ByteBuffer in) {
+        Long contestId = in.getLong();
+        int slot = participationIndex.get(in.getLong(), contestId);
+        long time = in.getLong();
+        if (slot < 0) {
+            return;
+        }
+        ParticipationStore store = participationStores.get(contestId);
+        if (store.status(slot) != 2) {
+            store.markFinished(slot, time);
+            getLeaderboard(contestId).add(slot, store.score(slot), store.duration(slot), store.id(slot));
+        }
+    }
+
+    private void applySettled(ByteBuffer in) {
+        Long contestId = in.getLong();
+        long time = in.getLong();
+        int count = in.getInt();
+        Contest contest = contests.get(contestId);
+        if (contest == null) {
+            return;
+        }
+        contest.setStatus(3);
+        contest.setUpdateTime(toDateTime(time));
+        ParticipationStore store = participationStores.get(contestId);
+        for (int i = 0; i < count; i++) {
+            int slot = participationIndex.get(in.getLong(), contestId);
+            int coins = in.getInt();
+            if (slot >= 0) {
+                store.setRewardCoins(slot, coins);
+            }
+        }
+    }
+
+    private static void bumpGenerator(AtomicLong generator, long usedId) {
+        generator.accumulateAndGet(usedId + 1, Math::max);
+    }
+
+    /**
+     * 把列式存储中的一行转换为接口返回的ContestParticipation
+     * 后完成的选手会改变先完成选手的名次，因此名次在转换时从排行榜实时读取
+     */
+    private ContestParticipation toView(Long contestId, ParticipationStore store, int slot) {
+        ContestParticipation participation = new ContestParticipation();
+        synchronized (store.rowLock(slot)) {
+            participation.setId(store.id(slot));
+            participation.setContestId(contestId);
+            participation.setUserId(store.userId(slot));
+            participation.setUsername(store.username(slot));
+            participation.setTotalScore(store.score(slot));
+            participation.setCorrectCount(store.correctCount(slot));
+            participation.setTotalQuestions(store.questionCount());
+            participation.setTotalDuration(store.duration(slot));
+            participation.setRewardCoins(store.rewardCoins(slot));
+            participation.setStatus(store.status(slot));
+            participation.setRegistrationTime(toDateTime(store.registrationTime(slot)));
+            participation.setStartTime(toDateTime(store.startTime(slot)));
+            participation.setFinishTime(toDateTime(store.finishTime(slot)));
+            participation.setCreateTime(participation.getRegistrationTime());
+            participation.setUpdateTime(toDateTime(store.updateTime(slot)));
+        }
+        participation.setRank(participation.getStatus() == 2 ? getLeaderboard(contestId).rankOf(
+                participation.getTotalScore(), participation.getTotalDuration(), participation.getId()) : 0);
+        return participation;
+    }
+
+    private static LocalDateTime toDateTime(long epochMilli) {
+        return epochMilli == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
     }
 
     /**
      * 获取比赛列表
      */
     public List<Contest> getAllContests() {
-        return new ArrayList<>(contests.values());
+        List<Contest> result = new ArrayList<>(contests.size());
+        for (Contest contest : contests.values()) {
+            result.add(snapshot(contest));
+        }
+        return result;
     }
 
     /**
      * 获取比赛详情
      */
     public Contest getContest(Long contestId) {
-        return contests.get(contestId);
+        Contest contest = contests.get(contestId);
+        return contest != null ? snapshot(contest) : null;
     }
 
     /**
-     * 开始比赛
+     * 开始比赛，返回比赛题目列表（预序列化的JSON）
+     * 先构建题目列表再开始计时：题目被题库热加载删除时直接失败，不会留下没有题目却在计时的参赛记录
      */
-    public void startContest(Long contestId, Long userId) {
-        String key = userId + "_" + contestId;
-        ContestParticipation participation = userContestMap.get(key);
+    public RawValue startContest(Long contestId, Long userId) {
+        int slot = participationIndex.get(userId, contestId);
         
-        if (participation == null) {
+        if (slot < 0) {
             throw new BusinessException("您未报名此比赛");
         }
 
-        if (participation.getStatus() == 2) {
-            throw new BusinessException("您已经完成了此比赛");
-        }
+        RawValue questions = getContestQuestionsPayload(contestId);
+        ParticipationStore store = participationStores.get(contestId);
+        synchronized (store.rowLock(slot)) {
+            checkNotEnded(contestId);
+            if (store.status(slot) == 2) {
+                throw new BusinessException("您已经完成了此比赛");
+            }
 
-        // 标记为进行中
-        participation.setStatus(1);
-        participation.setStartTime(LocalDateTime.now());
-        participation.setUpdateTime(LocalDateTime.now());
+            // 标记为进行中，重复开始不重置计时
+            if (store.status(slot) == 0) {
+                markStarted(contestId, store, slot);
+            }
+        }
         
         log.info("用户 {} 开始比赛 {}", userId, contestId);
+        return questions;
     }
 
     /**
-     * 获取比赛题目列表
+     * 获取比赛题目列表（预序列化的JSON）
+     * 由各题目缓存的JSON直接拼接，比赛题目列表被替换或题库有变化时重新构建
      */
-    public List<QuestionResponse> getContestQuestions(Long contestId) {
+    public RawValue getContestQuestionsPayload(Long contestId) {
         Contest contest = contests.get(contestId);
         if (contest == null) {
             throw new BusinessException("比赛不存在");
         }
-        
-        List<QuestionResponse> questions = new ArrayList<>();
-        for (Long questionId : contest.getQuestionIds()) {
-            QuestionResponse question = questionService.getQuestion(questionId);
-            if (question != null) {
-                questions.add(question);
-            }
+
+        List<Long> questionIds = contest.getQuestionIds();
+        // 先读版本再构建，构建期间题目有变化时下次请求会再重建
+        long bankVersion = questionService.getBankVersion();
+        QuestionPayload payload = questionPayloads.get(contestId);
+        if (payload == null || payload.questionIds != questionIds || payload.bankVersion != bankVersion) {
+            payload = new QuestionPayload(questionIds, bankVersion, buildQuestionsJson(questionIds));
+            questionPayloads.put(contestId, payload);
         }
-        return questions;
+        return payload.json;
+    }
+
+    private RawValue buildQuestionsJson(List<Long> questionIds) {
+        List<Utf8Json> questions = new ArrayList<>(questionIds.size());
+        for (Long questionId : questionIds) {
+            questions.add(questionService.getQuestionUtf8(questionId));
+        }
+        return new RawValue(Utf8Json.array(questions));
+    }
+
+    /**
+     * 分页获取比赛排行榜
+     * @param offset 起始偏移量（从0开始）
+     * @param limit 每页数量
+     */
+    public RankingPageResponse getRankingPage(Long contestId, Long userId, int offset, int limit) {
+        ContestLeaderboard leaderboard = getLeaderboard(contestId);
+        offset = Math.max(offset, 0);
+        limit = Math.min(Math.max(limit, 1), MAX_RANKING_PAGE_SIZE);
+
+        int total = leaderboard.size();
+        List<RankingItem> items = toRankingItems(contestId, leaderboard.range(offset, limit), offset + 1);
+        Integer nextOffset = offset + items.size() < total ? offset + items.size() : null;
+        return new RankingPageResponse(total, myRank(contestId, userId, leaderboard), nextOffset, items);
+    }
+
+    /**
+     * 获取当前用户名次前后k名的排行窗口
+     */
+    public RankingPageResponse getRankingAround(Long contestId, Long userId, int k) {
+        ContestLeaderboard leaderboard = getLeaderboard(contestId);
+        k = Math.min(Math.max(k, 0), MAX_RANKING_PAGE_SIZE / 2);
+
+        int total = leaderboard.size();
+        Integer rank = myRank(contestId, userId, leaderboard);
+        if (rank == null) {
+            return new RankingPageResponse(total, null, null, new ArrayList<>());
+        }
+
+        int offset = Math.max(rank - 1 - k, 0);
+        List<RankingItem> items = toRankingItems(contestId, leaderboard.range(offset, rank - offset + k), offset + 1);
+        Integer nextOffset = offset + items.size() < total ? offset + items.size() : null;
+        return new RankingPageResponse(total, rank, nextOffset, items);
+    }
+
+    private ContestLeaderboard getLeaderboard(Long contestId) {
+        ContestLeaderboard leaderboard = leaderboards.get(contestId);
+        if (leaderboard == null) {
+            throw new BusinessException("比赛不存在");
+        }
+        return leaderboard;
     }
 
     /**
-     * 获取比赛排行榜
+     * 比赛是否已结束；结算在比赛锁内完成，这里持锁读取，返回true时排行榜已是最终结果
      */
-    public List<ContestParticipation> getContestRanking(Long contestId) {
-        return participations.get(contestId).stream()
-                .filter(p -> p.getStatus() == 2)
-                .sorted((a, b) -> {
-                    int scoreCompare = b.getTotalScore().compareTo(a.getTotalScore());
-                    if (scoreCompare != 0) return scoreCompare;
-                    return a.getTotalDuration().compareTo(b.getTotalDuration());
-                })
-                .collect(Collectors.toList());
+    public boolean isContestEnded(Long contestId) {
+        Contest contest = contests.get(contestId);
+        if (contest == null) {
+            return true;
+        }
+        synchronized (contestLock(contestId)) {
+            return contest.getStatus() == 3;
+        }
+    }
+
+    /**
+     * 获取排行榜版本号，排行榜每次变化都会递增
+     */
+    public long getLeaderboardVersion(Long contestId) {
+        return getLeaderboard(contestId).version();
+    }
+
+    private Integer myRank(Long contestId, Long userId, ContestLeaderboard leaderboard) {
+        if (userId == null) {
+            return null;
+        }
+        int slot = participationIndex.get(userId, contestId);
+        ParticipationStore store = participationStores.get(contestId);
+        if (slot < 0 || store.status(slot) != 2) {
+            return null;
+        }
+        int rank = leaderboard.rankOf(store.score(slot), store.duration(slot), store.id(slot));
+        return rank > 0 ? rank : null;
+    }
+
+    /**
+     * 已完成选手的成绩不再变化，直接从列式存储读取，无需加行锁
+     */
+    private List<RankingItem> toRankingItems(Long contestId, int[] slots, int firstRank) {
+        ParticipationStore store = participationStores.get(contestId);
+        List<RankingItem> items = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            items.add(new RankingItem(firstRank + i, store.userId(slot), store.username(slot),
+                    store.score(slot), store.duration(slot)));
+        }
+        return items;
     }
 
     /**
      * 获取用户参赛记录
      */
     public ContestParticipation getUserParticipation(Long contestId, Long userId) {
-        String key = userId + "_" + contestId;
-        return userContestMap.get(key);
+        int slot = participationIndex.get(userId, contestId);
+        if (slot < 0) {
+            return null;
+        }
+        return toView(contestId, participationStores.get(contestId), slot);
     }
 
     /**
-     * 获取用户所有参赛记录
+     * 获取用户所有参赛记录，按报名时间从新到旧
      */
     public List<ContestParticipation> getUserAllParticipations(Long userId) {
-        return userContestMap.values().stream()
-                .filter(p -> p.getUserId().equals(userId))
-                .sorted((a, b) -> b.getCreateTime().compareTo(a.getCreateTime()))
-                .collect(Collectors.toList());
+        Deque<Long> contestIds = userParticipations.get(userId);
+        if (contestIds == null) {
+            return new ArrayList<>();
+        }
+
+        List<ContestParticipation> result = new ArrayList<>();
+        for (Long contestId : contestIds) {
+            result.add(getUserParticipation(contestId, userId));
+        }
+        // 同一毫秒内的报名按参赛记录ID（分配顺序）区分
+        result.sort(Comparator.comparing(ContestParticipation::getRegistrationTime)
+                .thenComparing(ContestParticipation::getId).reversed());
+        return result;
+    }
+
+    /**
+     * 单场比赛的报名队列，draining标记保证同一时间只有一个线程在处理
+     */
+    private static final class AdmissionQueue {
+        final Queue<JoinRequest> requests = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean draining = new AtomicBoolean(false);
+    }
+
+    /**
+     * 排队中的报名请求
+     */
+    private static final class JoinRequest {
+        final Long userId;
+        final String username;
+        final CompletableFuture<ContestParticipation> future = new CompletableFuture<>();
+        int slot;
+
+        JoinRequest(Long userId, String username) {
+            this.userId = userId;
+            this.username = username;
+        }
+
+        void fail(String message) {
+            future.completeExceptionally(new BusinessException(message));
+        }
+    }
+
+    /**
+     * 比赛题目缓存，questionIds用于判断比赛题目是否被替换，bankVersion用于判断题目内容是否有变化
+     */
+    private static final class QuestionPayload {
+        final List<Long> questionIds;
+        final long bankVersion;
+        final RawValue json;
+
+        QuestionPayload(List<Long> questionIds, long bankVersion, RawValue json) {
+            this.questionIds = questionIds;
+            this.bankVersion = bankVersion;
+            this.json = json;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,337 @@
+package com.trialsisland.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 内存映射的预写日志（按段滚动 + 组提交）
+ * 每条记录格式：[长度int][CRC32C int][内容]，段文件预分配固定大小，长度为0表示段内数据结束。
+ * 追加只把记录写入映射内存并返回逻辑位置；需要落盘的调用方在释放业务锁后调用
+ * {@link #awaitDurable(long)}，由刷盘线程一次force覆盖期间所有等待者（组提交）。
+ * 快照文件 snapshot-N 包含段N之前的全部状态，恢复时先读快照再重放段N及之后的段，
+ * 快照生成后删除更早的段和快照
+ */
+@Slf4j
+class MappedEventLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+    private static final int HEADER_SIZE = 8;
+    // 没有等待者时的定期刷盘间隔（毫秒）
+    private static final long IDLE_FLUSH_MILLIS = 1000;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final Object lock = new Object();
+    private final Object flushMonitor = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentIndex = -1;
+    // 已追加的逻辑字节数（跨段累计），在lock内修改
+    private long written;
+    private volatile long durable;
+    private long requested;
+    private volatile boolean running;
+    private Thread flusher;
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * @param dir 日志目录
+     * @param segmentSize 单个段文件大小（字节）
+     */
+    MappedEventLog(Path dir, int segmentSize) {
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * 重放已有日志：先读最新快照，再按顺序读取其后的段，返回重放的记录数
+     * 遇到未写完的记录（长度为0或校验失败）即视为该段结束
+     */
+    long replay(Consumer<ByteBuffer> handler) {
+        try {
+            Files.createDirectories(dir);
+            long snapshot = latestIndex(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+            long count = 0;
+            if (snapshot >= 0) {
+                count += readRecords(dir.resolve(SNAPSHOT_PREFIX + snapshot + SNAPSHOT_SUFFIX), handler);
+            }
+            for (long index : indexes(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (index >= snapshot) {
+                    count += readRecords(segmentPath(index), handler);
+                }
+                segmentIndex = Math.max(segmentIndex, index);
+            }
+            segmentIndex = Math.max(segmentIndex, snapshot - 1);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("重放事件日志失败: " + dir, e);
+        }
+    }
+
+    /**
+     * 打开新的段文件开始写入，并启动刷盘线程（需在replay之后调用）
+     */
+    void open() {
+        synchronized (lock) {
+            rotate();
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "contest-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 追加一条记录，返回该记录结束时的逻辑位置
+     */
+    long append(byte[] record) {
+        int size = HEADER_SIZE + record.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("事件记录超过段大小: " + size);
+        }
+        synchronized (lock) {
+            if (buffer.remaining() < size) {
+                rotate();
+            }
+            crc.reset();
+            crc.update(record);
+            buffer.putInt(record.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(record);
+            written += size;
+            return written;
+        }
+    }
+
+    /**
+     * 当前已追加的逻辑位置
+     */
+    long position() {
+        synchronized (lock) {
+            return written;
+        }
+    }
+
+    /**
+     * 等待指定位置之前的记录落盘
+     */
+    void awaitDurable(long position) {
+        if (durable >= position) {
+            return;
+        }
+        synchronized (flushMonitor) {
+            requested = Math.max(requested, position);
+            flushMonitor.notifyAll();
+            while (durable < position && running) {
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成快照：先切换到新段，再由dumper写出当前全量状态，完成后删除旧段和旧快照
+     * 快照期间仍可并发写入，重放时快照之后的段会再次应用，因此事件的应用必须是幂等的；
+     * 旧段会被删除，dumper读取每份状态时必须持有写入方"写事件+改内存"期间持有的锁，
+     * 保证写入旧段的事件都已体现在快照中
+     */
+    void snapshot(Consumer<Consumer<byte[]>> dumper) {
+        long index;
+        synchronized (lock) {
+            rotate();
+            index = segmentIndex;
+        }
+
+        Path tmp = dir.resolve(SNAPSHOT_PREFIX + index + ".tmp");
+        Path target = dir.resolve(SNAPSHOT_PREFIX + index + SNAPSHOT_SUFFIX);
+        try {
+            try (OutputStream file = Files.newOutputStream(tmp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                CRC32C snapshotCrc = new CRC32C();
+                dumper.accept(record -> {
+                    snapshotCrc.reset();
+                    snapshotCrc.update(record);
+                    try {
+                        out.writeInt(record.length);
+                        out.writeInt((int) snapshotCrc.getValue());
+                        out.write(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                tmpChannel.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+            for (long old : indexes(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+                if (old < index) {
+                    Files.deleteIfExists(segmentPath(old));
+                }
+            }
+            for (long old : indexes(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+                if (old < index) {
+                    Files.deleteIfExists(dir.resolve(SNAPSHOT_PREFIX + old + SNAPSHOT_SUFFIX));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("生成事件日志快照失败", e);
+        }
+    }
+
+    /**
+     * 刷盘并停止刷盘线程
+     */
+    void close() {
+        synchronized (lock) {
+            if (buffer != null) {
+                buffer.force();
+            }
+        }
+        running = false;
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+        closeChannel();
+    }
+
+    /**
+     * 切换到下一个段，调用方需持有lock
+     */
+    private void rotate() {
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            closeChannel();
+            segmentIndex++;
+            channel = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("创建事件日志段失败: " + segmentIndex, e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭事件日志段失败: {}", e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * 刷盘线程：有等待者时立即刷盘，一次force覆盖期间追加的所有记录
+     */
+    private void flushLoop() {
+        while (running) {
+            synchronized (flushMonitor) {
+                if (requested <= durable) {
+                    try {
+                        flushMonitor.wait(IDLE_FLUSH_MILLIS);
+                    } catch (InterruptedException e) {
+                        if (!running) {
+                            return;
+                        }
+                    }
+                }
+            }
+
+            long target;
+            MappedByteBuffer current;
+            synchronized (lock) {
+                target = written;
+                current = buffer;
+            }
+            if (target > durable) {
+                current.force();
+            }
+            synchronized (flushMonitor) {
+                durable = Math.max(durable, target);
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    private long readRecords(Path path, Consumer<ByteBuffer> handler) throws IOException {
+        long count = 0;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            CRC32C check = new CRC32C();
+            while (data.remaining() >= HEADER_SIZE) {
+                int length = data.getInt();
+                int checksum = data.getInt();
+                if (length <= 0 || length > data.remaining()) {
+                    break;
+                }
+                ByteBuffer record = data.slice(data.position(), length);
+                check.reset();
+                check.update(record.duplicate());
+                if ((int) check.getValue() != checksum) {
+                    log.warn("事件日志 {} 在位置 {} 校验失败，忽略其后的记录", path.getFileName(), data.position());
+                    break;
+                }
+                handler.accept(record);
+                data.position(data.position() + length);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Path segmentPath(long index) {
+        return dir.resolve(SEGMENT_PREFIX + index + SEGMENT_SUFFIX);
+    }
+
+    private long latestIndex(String prefix, String suffix) throws IOException {
+        List<Long> indexes = indexes(prefix, suffix);
+        return indexes.isEmpty() ? -1 : indexes.get(indexes.size() - 1);
+    }
+
+    /**
+     * 目录下指定类型文件的序号，升序
+     */
+    private List<Long> indexes(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> result.add(Long.parseLong(
+                            name.substring(prefix.length(), name.length() - suffix.length()))));
+        }
+        result.sort(null);
+        return result;
+    }
+}
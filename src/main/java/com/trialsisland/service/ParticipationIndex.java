@@ -0,0 +1,124 @@
+package com.trialsisland.service;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 参赛记录索引：(userId, contestId) -> 该比赛参赛数据存储中的行号
+ * 开放寻址 + 线性探测，键和值都存放在基本类型数组中，查询时不拼接字符串、不装箱
+ * 读操作走StampedLock乐观读，无锁无分配；写操作（报名）加写锁
+ */
+class ParticipationIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * 查询行号，不存在返回-1
+     */
+    int get(long userId, long contestId) {
+        long stamp = lock.tryOptimisticRead();
+        int value = table.find(userId, contestId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = table.find(userId, contestId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 不存在时写入，返回已存在的行号（写入成功返回-1）
+     */
+    int putIfAbsent(long userId, long contestId, int slot) {
+        long stamp = lock.writeLock();
+        try {
+            int existing = table.find(userId, contestId);
+            if (existing >= 0) {
+                return existing;
+            }
+            // 负载因子不超过0.5，保证探测链短且总有空槽
+            if ((size + 1) * 2 > table.values.length) {
+                table = table.resize();
+            }
+            table.insert(userId, contestId, slot);
+            size++;
+            return -1;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    static int hash(long userId, long contestId) {
+        long h = userId * 0x9E3779B97F4A7C15L ^ contestId;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static final class Table {
+        final long[] userIds;
+        final long[] contestIds;
+        // 存放行号+1，0表示空槽
+        final int[] values;
+        final int mask;
+
+        Table(int capacity) {
+            userIds = new long[capacity];
+            contestIds = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        int find(long userId, long contestId) {
+            int index = hash(userId, contestId) & mask;
+            // 最多探测一轮，乐观读下即使读到中间状态也不会死循环
+            for (int probes = 0; probes <= mask; probes++) {
+                int value = values[index];
+                if (value == 0) {
+                    return -1;
+                }
+                if (userIds[index] == userId && contestIds[index] == contestId) {
+                    return value - 1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        void insert(long userId, long contestId, int slot) {
+            int index = hash(userId, contestId) & mask;
+            while (values[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            userIds[index] = userId;
+            contestIds[index] = contestId;
+            values[index] = slot + 1;
+        }
+
+        Table resize() {
+            Table bigger = new Table(values.length * 2);
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != 0) {
+                    bigger.insert(userIds[i], contestIds[i], values[i] - 1);
+                }
+            }
+            return bigger;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.trialsisland.service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 单场比赛的参赛数据列式存储
+ * 每个字段一列基本类型数组，按页（1024行）分配，扩容只追加新页，已分配的页永不搬移，
+ * 因此持有行号的线程在扩容期间读写也是安全的。时间统一存为毫秒时间戳（0表示空）。
+ * 答题卡（已答/答对位图、每题用时）同样按行存放在页内，不为每位选手单独分配对象。
+ * 行的追加由调用方持有比赛锁保证串行；单行字段的修改需持有 {@link #rowLock(int)}
+ */
+class ParticipationStore {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int LOCK_STRIPES = 64;
+
+    private final int questionCount;
+    private final int wordsPerRow;
+    private final Object[] rowLocks = new Object[LOCK_STRIPES];
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+
+    ParticipationStore(int questionCount) {
+        this.questionCount = questionCount;
+        this.wordsPerRow = Math.max(1, (questionCount + 63) >>> 6);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            rowLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 追加一行，返回行号，调用方需持有比赛锁
+     */
+    int append(long id, long userId, String username, long now) {
+        int slot = size;
+        Page[] current = pages;
+        if ((slot >>> PAGE_SHIFT) >= current.length) {
+            Page[] grown = new Page[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = new Page(wordsPerRow, questionCount);
+            pages = grown;
+        }
+        Page page = page(slot);
+        int row = slot & PAGE_MASK;
+        page.ids[row] = id;
+        page.userIds[row] = userId;
+        page.usernames[row] = username;
+        page.registrationTimes[row] = now;
+        page.updateTimes[row] = now;
+        size = slot + 1;
+        return slot;
+    }
+
+    /**
+     * 行锁（分段），答题、交卷等修改单行的操作使用
+     */
+    Object rowLock(int slot) {
+        return rowLocks[slot & (LOCK_STRIPES - 1)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int questionCount() {
+        return questionCount;
+    }
+
+    long id(int slot) {
+        return page(slot).ids[slot & PAGE_MASK];
+    }
+
+    long userId(int slot) {
+        return page(slot).userIds[slot & PAGE_MASK];
+    }
+
+    String username(int slot) {
+        return page(slot).usernames[slot & PAGE_MASK];
+    }
+
+    int score(int slot) {
+        return page(slot).scores[slot & PAGE_MASK];
+    }
+
+    int correctCount(int slot) {
+        return page(slot).correctCounts[slot & PAGE_MASK];
+    }
+
+    int duration(int slot) {
+        return page(slot).durations[slot & PAGE_MASK];
+    }
+
+    /**
+     * 参赛状态：0-已报名，1-进行中，2-已完成
+     */
+    int status(int slot) {
+        return page(slot).statuses[slot & PAGE_MASK];
+    }
+
+    int rewardCoins(int slot) {
+        return page(slot).rewardCoins[slot & PAGE_MASK];
+    }
+
+    long registrationTime(int slot) {
+        return page(slot).registrationTimes[slot & PAGE_MASK];
+    }
+
+    long startTime(int slot) {
+        return page(slot).startTimes[slot & PAGE_MASK];
+    }
+
+    long finishTime(int slot) {
+        return page(slot).finishTimes[slot & PAGE_MASK];
+    }
+
+    long updateTime(int slot) {
+        return page(slot).updateTimes[slot & PAGE_MASK];
+    }
+
+    /**
+     * 题目是否已作答
+     */
+    boolean isAnswered(int slot, int questionIndex) {
+        Page page = page(slot);
+        int word = (slot & PAGE_MASK) * wordsPerRow + (questionIndex >>> 6);
+        return (page.answeredBits[word] & (1L << questionIndex)) != 0;
+    }
+
+    void markStarted(int slot, long now) {
+        Page page = page(slot);
+        int row = slot & PAGE_MASK;
+        page.statuses[row] = 1;
+        page.startTimes[row] = now;
+        page.updateTimes[row] = now;
+    }
+
+    /**
+     * 记录一道题的作答结果并累计成绩
+     */
+    void recordAnswer(int slot, int questionIndex, boolean isCorrect, int score, int duration, long now) {
+        Page page = page(slot);
+        int row = slot & PAGE_MASK;
+        int word = row * wordsPerRow + (questionIndex >>> 6);
+        page.answeredBits[word] |= 1L << questionIndex;
+        if (isCorrect) {
+            page.correctBits[word] |= 1L << questionIndex;
+            page.correctCounts[row]++;
+            page.scores[row] += score;
+        }
+        page.questionDurations[row * questionCount + questionIndex] = duration;
+        page.durations[row] += duration;
+        page.updateTimes[row] = now;
+    }
+
+    void markFinished(int slot, long now) {
+        Page page = page(slot);
+        int row = slot & PAGE_MASK;
+        page.statuses[row] = 2;
+        page.finishTimes[row] = now;
+        page.updateTimes[row] = now;
+    }
+
+    void setRewardCoins(int slot, int coins) {
+        page(slot).rewardCoins[slot & PAGE_MASK] = coins;
+    }
+
+    /**
+     * 写出一行的全部字段（事件日志快照使用），调用方需持有该行的行锁
+     */
+    void writeRow(int slot, DataOutputStream out) throws IOException {
+        Page page = page(slot);
+        int row = slot & PAGE_MASK;
+        out.writeLong(page.ids[row]);
+        out.writeLong(page.userIds[row]);
+        byte[] username = page.usernames[row] != null
+                ? page.usernames[row].getBytes(StandardCharsets.UTF_8) : new byte[0];
+        out.writeInt(username.length);
+        out.write(username);
+        out.writeByte(page.statuses[row]);
+        out.writeInt(page.scores[row]);
+        out.writeInt(page.correctCounts[row]);
+        out.writeInt(page.durations[row]);
+        out.writeInt(page.rewardCoins[row]);
+        out.writeLong(page.registrationTimes[row]);
+        out.writeLong(page.startTimes[row]);
+        out.writeLong(page.finishTimes[row]);
+        out.writeLong(page.updateTimes[row]);
+        for (int i = 0; i < wordsPerRow; i++) {
+            out.writeLong(page.answeredBits[row * wordsPerRow + i]);
+            out.writeLong(page.correctBits[row * wordsPerRow + i]);
+        }
+        for (int i = 0; i < questionCount; i++) {
+            out.writeInt(page.questionDurations[row * questionCount + i]);
+        }
+    }
+
+    /**
+     * 读取 {@link #writeRow} 写出的一行并追加，返回行号，调用方需持有比赛锁
+     */
+    int readRow(ByteBuffer in) {
+        long id = in.getLong();
+        long userId = in.getLong();
+        byte[] username = new byte[in.getInt()];
+        in.get(username);
+        int slot = append(id, userId, new String(username, StandardCharsets.UTF_8), 0);
+        Page page = page(slot);
+        int row = slot & PAGE_MASK;
+        page.statuses[row] = in.get();
+        page.scores[row] = in.getInt();
+        page.correctCounts[row] = in.getInt();
+        page.durations[row] = in.getInt();
+        page.rewardCoins[row] = in.getInt();
+        page.registrationTimes[row] = in.getLong();
+        page.startTimes[row] = in.getLong();
+        page.finishTimes[row] = in.getLong();
+        page.updateTimes[row] = in.getLong();
+        for (int i = 0; i < wordsPerRow; i++) {
+            page.answeredBits[row * wordsPerRow + i] = in.getLong();
+            page.correctBits[row * wordsPerRow + i] = in.getLong();
+        }
+        for (int i = 0; i < questionCount; i++) {
+            page.questionDurations[row * questionCount + i] = in.getInt();
+        }
+        return slot;
+    }
+
+    /**
+     * 已分配的列数组占用的字节数（不含对象头和用户名字符串本身）
+     */
+    long memoryBytes() {
+        long perRow = 8L * 6 + 4L * 4 + 1 + 4 + 8L * 2 * wordsPerRow + 4L * questionCount;
+        return perRow * PAGE_SIZE * pages.length;
+    }
+
+    private Page page(int slot) {
+        return pages[slot >>> PAGE_SHIFT];
+    }
+
+    private static final class Page {
+        final long[] ids = new long[PAGE_SIZE];
+        final long[] userIds = new long[PAGE_SIZE];
+        final String[] usernames = new String[PAGE_SIZE];
+        final int[] scores = new int[PAGE_SIZE];
+        final int[] correctCounts = new int[PAGE_SIZE];
+        final int[] durations = new int[PAGE_SIZE];
+        final int[] rewardCoins = new int[PAGE_SIZE];
+        final byte[] statuses = new byte[PAGE_SIZE];
+        final long[] registrationTimes = new long[PAGE_SIZE];
+        final long[] startTimes = new long[PAGE_SIZE];
+        final long[] finishTimes = new long[PAGE_SIZE];
+        final long[] updateTimes = new long[PAGE_SIZE];
+        final long[] answeredBits;
+        final long[] correctBits;
+        final int[] questionDurations;
+
+        Page(int wordsPerRow, int questionCount) {
+            answeredBits = new long[PAGE_SIZE * wordsPerRow];
+            correctBits = new long[PAGE_SIZE * wordsPerRow];
+            questionDurations = new int[PAGE_SIZE * Math.max(questionCount, 1)];
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.trialsisland.entity.Question;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 题库文件解析器（流式）
+ * 逐行读取，每解析出一道题就交给调用方处理，不把整个文件读入内存；
+ * 格式错误的行跳过并记录警告，文件读取失败则抛出异常
+ * JSONL：每行一道题，字段与Question一致
+ * CSV：首行为列名（id,content,type,options,answer,difficulty,score,imageUrl，顺序任意），
+ * 选项之间用 | 分隔，含逗号、引号或换行的字段用双引号包裹，字段内的双引号写成两个
+ */
+@Slf4j
+class QuestionBankLoader {
+
+    static final String JSONL_SUFFIX = ".jsonl";
+    static final String CSV_SUFFIX = ".csv";
+
+    // 每个文件最多打印的错误行数
+    private static final int MAX_LOGGED_ERRORS = 5;
+
+    private final ObjectReader questionReader;
+
+    QuestionBankLoader(ObjectMapper objectMapper) {
+        this.questionReader = objectMapper.readerFor(Question.class);
+    }
+
+    /**
+     * 是否为题库文件
+     */
+    static boolean isBankFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(JSONL_SUFFIX) || name.endsWith(CSV_SUFFIX);
+    }
+
+    /**
+     * 目录下的题库文件，按文件名排序，目录不存在时返回空列表
+     */
+    static List<Path> listBankFiles(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(QuestionBankLoader::isBankFile)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * 解析一个题库文件，返回解析成功的题目数
+     */
+    long load(Path file, Consumer<Question> sink) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String name = file.getFileName().toString();
+            return name.toLowerCase(Locale.ROOT).endsWith(CSV_SUFFIX)
+                    ? loadCsv(reader, name, sink)
+                    : loadJsonLines(reader, name, sink);
+        }
+    }
+
+    /**
+     * 解析JSONL，空行跳过
+     */
+    long loadJsonLines(BufferedReader reader, String name, Consumer<Question> sink) throws IOException {
+        LineErrors errors = new LineErrors(name);
+        long count = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (lineNumber++ == 0) {
+                line = stripBom(line);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                Question question = questionReader.readValue(line);
+                if (accept(question, sink)) {
+                    count++;
+                } else {
+                    errors.add(lineNumber, "缺少题目ID");
+                }
+            } catch (JsonProcessingException e) {
+                errors.add(lineNumber, e.getOriginalMessage());
+            }
+        }
+        errors.summarize();
+        return count;
+    }
+
+    /**
+     * 解析CSV，首行为列名
+     */
+    long loadCsv(BufferedReader reader, String name, Consumer<Question> sink) throws IOException {
+        LineErrors errors = new LineErrors(name);
+        int[] lineNumber = {0};
+        List<String> header = readCsvRecord(reader, lineNumber);
+        if (header == null) {
+            return 0;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(stripBom(header.get(i)).trim().toLowerCase(Locale.ROOT), i);
+        }
+
+        long count = 0;
+        List<String> record;
+        while ((record = readCsvRecord(reader, lineNumber)) != null) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                Question question = new Question();
+                String id = column(record, columns, "id");
+                question.setId(id != null ? Long.parseLong(id) : null);
+                question.setContent(column(record, columns, "content"));
+                question.setType(column(record, columns, "type"));
+                String options = column(record, columns, "options");
+                question.setOptions(options != null ? Arrays.asList(options.split("\\|")) : null);
+                question.setAnswer(column(record, columns, "answer"));
+                String difficulty = column(record, columns, "difficulty");
+                question.setDifficulty(difficulty != null ? Integer.parseInt(difficulty) : null);
+                String score = column(record, columns, "score");
+                question.setScore(score != null ? Integer.parseInt(score) : null);
+                question.setImageUrl(column(record, columns, "imageurl"));
+                if (accept(question, sink)) {
+                    count++;
+                } else {
+                    errors.add(lineNumber[0], "缺少题目ID");
+                }
+            } catch (NumberFormatException e) {
+                errors.add(lineNumber[0], e.getMessage());
+            }
+        }
+        errors.summarize();
+        return count;
+    }
+
+    private static boolean accept(Question question, Consumer<Question> sink) {
+        if (question == null || question.getId() == null) {
+            return false;
+        }
+        if (question.getCreateTime() == null) {
+            question.setCreateTime(LocalDateTime.now());
+        }
+        sink.accept(question);
+        return true;
+    }
+
+    /**
+     * 去掉文件开头的UTF-8 BOM（Excel导出的CSV常带）
+     */
+    private static String stripBom(String value) {
+        return value.startsWith("\uFEFF") ? value.substring(1) : value;
+    }
+
+    /**
+     * 取某列的值，列不存在或值为空返回null
+     */
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 读取一条CSV记录，引号内的换行属于字段内容，读到文件末尾返回null
+     */
+    private static List<String> readCsvRecord(BufferedReader reader, int[] lineNumber) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber[0]++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted) {
+                break;
+            }
+            // 引号未闭合，字段延续到下一行
+            line = reader.readLine();
+            if (line == null) {
+                break;
+            }
+            lineNumber[0]++;
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 记录格式错误的行，只打印前几条，最后汇总
+     */
+    private static final class LineErrors {
+        private final String file;
+        private int count;
+
+        LineErrors(String file) {
+            this.file = file;
+        }
+
+        void add(int lineNumber, String message) {
+            if (++count <= MAX_LOGGED_ERRORS) {
+                log.warn("题库文件 {} 第 {} 行格式错误，已跳过: {}", file, lineNumber, message);
+            }
+        }
+
+        void summarize() {
+            if (count > MAX_LOGGED_ERRORS) {
+                log.warn("题库文件 {} 共跳过 {} 行格式错误的数据", file, count);
+            }
+        }
+    }
+}
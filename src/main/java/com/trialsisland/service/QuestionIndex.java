@@ -0,0 +1,355 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.Question;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 题库索引，支持O(1)随机抽取和按属性筛选抽取
+ * 题目ID紧凑存放在数组中，删除时用最后一个元素填补空位（交换删除），数组始终无空洞；
+ * 随机抽一题为O(1)，抽k道不重复的题用Floyd算法，时间和空间都是O(k)。
+ * 难度、类型、分值各自按取值维护一个位图，第i位对应数组第i个位置的题目，
+ * 筛选时把位图按位与/或得到候选集合，再在候选集合中随机抽取
+ * 无筛选条件的读操作走StampedLock乐观读，筛选读加读锁，写操作（增删题目）加写锁
+ */
+class QuestionIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StampedLock lock = new StampedLock();
+    // 题目ID -> 数组下标，只在锁内访问
+    private final Map<Long, Integer> positions = new HashMap<>();
+    // 各属性取值 -> 位图
+    private final TreeMap<Integer, long[]> difficultyBits = new TreeMap<>();
+    private final TreeMap<Integer, long[]> scoreBits = new TreeMap<>();
+    private final Map<String, long[]> typeBits = new HashMap<>();
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] difficulties = new int[INITIAL_CAPACITY];
+    private int[] scores = new int[INITIAL_CAPACITY];
+    private String[] types = new String[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * 加入题目，已存在时按新的属性重建索引
+     */
+    void add(Question question) {
+        long id = question.getId();
+        int difficulty = question.getDifficulty() != null ? question.getDifficulty() : 0;
+        int score = question.getScore() != null ? question.getScore() : 0;
+        String type = question.getType() != null ? question.getType() : "";
+
+        long stamp = lock.writeLock();
+        try {
+            if (positions.containsKey(id)) {
+                removeLocked(id);
+            }
+            if (size == ids.length) {
+                grow();
+            }
+            int position = size;
+            ids[position] = id;
+            difficulties[position] = difficulty;
+            scores[position] = score;
+            types[position] = type;
+            setBit(difficultyBits.computeIfAbsent(difficulty, k -> newBits()), position);
+            setBit(scoreBits.computeIfAbsent(score, k -> newBits()), position);
+            setBit(typeBits.computeIfAbsent(type, k -> newBits()), position);
+            positions.put(id, position);
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * 移除题目，不存在返回false
+     */
+    boolean remove(long id) {
+        long stamp = lock.writeLock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        long stamp = lock.tryOptimisticRead();
+        int current = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                current = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 随机抽取一个题目ID，索引为空返回-1
+     */
+    long random() {
+        long stamp = lock.tryOptimisticRead();
+        long id = pick(ids, size);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                id = pick(ids, size);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * 随机抽取最多k个不重复的题目ID，顺序随机
+     */
+    long[] sample(int k) {
+        long stamp = lock.tryOptimisticRead();
+        long[] result = sample(ids, size, k);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = sample(ids, size, k);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按筛选条件随机抽取最多k个不重复的题目ID，条件为null表示不限
+     */
+    long[] sample(Filter filter, int k) {
+        if (filter == null || filter.isEmpty()) {
+            return sample(k);
+        }
+
+        long stamp = lock.readLock();
+        try {
+            int words = wordCount(size);
+            long[] candidates = null;
+            if (filter.minDifficulty != null || filter.maxDifficulty != null) {
+                candidates = and(candidates, union(difficultyBits, filter.minDifficulty, filter.maxDifficulty, words));
+            }
+            if (filter.minScore != null || filter.maxScore != null) {
+                candidates = and(candidates, union(scoreBits, filter.minScore, filter.maxScore, words));
+            }
+            if (filter.type != null) {
+                long[] bits = typeBits.get(filter.type);
+                candidates = and(candidates, bits != null ? Arrays.copyOf(bits, words) : new long[words]);
+            }
+            return sampleBits(candidates, k);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 交换删除，同步移动被填补位置在各位图中的位，调用方需持有写锁
+     */
+    private boolean removeLocked(long id) {
+        Integer position = positions.remove(id);
+        if (position == null) {
+            return false;
+        }
+        int last = size - 1;
+        clearBit(difficultyBits.get(difficulties[position]), position);
+        clearBit(scoreBits.get(scores[position]), position);
+        clearBit(typeBits.get(types[position]), position);
+        if (position != last) {
+            clearBit(difficultyBits.get(difficulties[last]), last);
+            clearBit(scoreBits.get(scores[last]), last);
+            clearBit(typeBits.get(types[last]), last);
+
+            ids[position] = ids[last];
+            difficulties[position] = difficulties[last];
+            scores[position] = scores[last];
+            types[position] = types[last];
+            setBit(difficultyBits.get(difficulties[position]), position);
+            setBit(scoreBits.get(scores[position]), position);
+            setBit(typeBits.get(types[position]), position);
+            positions.put(ids[position], position);
+        }
+        types[last] = null;
+        size = last;
+        return true;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        difficulties = Arrays.copyOf(difficulties, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        types = Arrays.copyOf(types, capacity);
+        growBits(difficultyBits, capacity);
+        growBits(scoreBits, capacity);
+        growBits(typeBits, capacity);
+    }
+
+    private static <K> void growBits(Map<K, long[]> index, int capacity) {
+        index.replaceAll((key, bits) -> Arrays.copyOf(bits, wordCount(capacity)));
+    }
+
+    private long[] newBits() {
+        return new long[wordCount(ids.length)];
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    private static void setBit(long[] bits, int position) {
+        bits[position >>> 6] |= 1L << position;
+    }
+
+    private static void clearBit(long[] bits, int position) {
+        bits[position >>> 6] &= ~(1L << position);
+    }
+
+    /**
+     * 取值在[min, max]内的位图按位或
+     */
+    private static long[] union(TreeMap<Integer, long[]> index, Integer min, Integer max, int words) {
+        long[] result = new long[words];
+        if (min != null && max != null && min > max) {
+            return result;
+        }
+        Map<Integer, long[]> range = index.subMap(min != null ? min : Integer.MIN_VALUE, true,
+                max != null ? max : Integer.MAX_VALUE, true);
+        for (long[] bits : range.values()) {
+            for (int i = 0; i < words; i++) {
+                result[i] |= bits[i];
+            }
+        }
+        return result;
+    }
+
+    private static long[] and(long[] current, long[] bits) {
+        if (current == null) {
+            return bits;
+        }
+        for (int i = 0; i < current.length; i++) {
+            current[i] &= bits[i];
+        }
+        return current;
+    }
+
+    /**
+     * 在候选位图中随机抽取k个：先用Floyd算法抽取k个名次，排序后一次扫描位图定位到下标
+     */
+    private long[] sampleBits(long[] candidates, int k) {
+        int total = 0;
+        for (long word : candidates) {
+            total += Long.bitCount(word);
+        }
+        int[] ranks = floyd(total, k);
+        Arrays.sort(ranks);
+
+        long[] result = new long[ranks.length];
+        int seen = 0;
+        int next = 0;
+        for (int w = 0; w < candidates.length && next < ranks.length; w++) {
+            long word = candidates[w];
+            int count = Long.bitCount(word);
+            while (next < ranks.length && ranks[next] < seen + count) {
+                // 在当前字中找到第(ranks[next] - seen)个置位
+                long bits = word;
+                for (int skip = ranks[next] - seen; skip > 0; skip--) {
+                    bits &= bits - 1;
+                }
+                result[next++] = ids[(w << 6) + Long.numberOfTrailingZeros(bits)];
+            }
+            seen += count;
+        }
+        shuffle(result);
+        return result;
+    }
+
+    private static long pick(long[] ids, int size) {
+        // 乐观读下size和数组可能来自不同版本，越界时返回-1，由validate失败后重试
+        if (size <= 0 || size > ids.length) {
+            return -1;
+        }
+        return ids[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    private static long[] sample(long[] ids, int size, int k) {
+        if (size > ids.length) {
+            return new long[0];
+        }
+        int[] positions = floyd(size, k);
+        long[] result = new long[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            result[i] = ids[positions[i]];
+        }
+        shuffle(result);
+        return result;
+    }
+
+    /**
+     * Floyd算法：依次对j = n-k .. n-1，在[0, j]中随机取t，t已被选过则选j，
+     * 得到min(k, n)个等概率的不重复下标
+     */
+    private static int[] floyd(int n, int k) {
+        int count = Math.min(Math.max(k, 0), n);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Integer> chosen = new HashSet<>(count * 2);
+        int[] result = new int[count];
+        int filled = 0;
+        for (int j = n - count; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int position = chosen.add(t) ? t : j;
+            if (position == j) {
+                chosen.add(j);
+            }
+            result[filled++] = position;
+        }
+        return result;
+    }
+
+    private static void shuffle(long[] values) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = values.length - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            long tmp = values[i];
+            values[i] = values[swap];
+            values[swap] = tmp;
+        }
+    }
+
+    /**
+     * 筛选条件，字段为null表示不限
+     */
+    static final class Filter {
+        final Integer minDifficulty;
+        final Integer maxDifficulty;
+        final String type;
+        final Integer minScore;
+        final Integer maxScore;
+
+        Filter(Integer minDifficulty, Integer maxDifficulty, String type, Integer minScore, Integer maxScore) {
+            this.minDifficulty = minDifficulty;
+            this.maxDifficulty = maxDifficulty;
+            this.type = type;
+            this.minScore = minScore;
+            this.maxScore = maxScore;
+        }
+
+        boolean isEmpty() {
+            return minDifficulty == null && maxDifficulty == null && type == null
+                    && minScore == null && maxScore == null;
+        }
+    }
+}
@@ -1,111 +1,339 @@
 package com.trialsisland.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.trialsisland.config.QuestionBankProperties;
+import com.trialsisland.config.QuestionStatsProperties;
+import com.trialsisland.dto.AnswerHistoryPage;
+import com.trialsisland.dto.BatchSubmitAnswerResponse;
 import com.trialsisland.dto.QuestionResponse;
+import com.trialsisland.dto.QuestionStatsResponse;
+import com.trialsisland.dto.ReviewResponse;
 import com.trialsisland.dto.SubmitAnswerRequest;
 import com.trialsisland.dto.SubmitAnswerResponse;
+import com.trialsisland.dto.UserStatsResponse;
 import com.trialsisland.entity.Question;
 import com.trialsisland.entity.UserAnswer;
 import com.trialsisland.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 /**
  * 题目服务类
+ * 题库整体保存在一个不可替换的Bank对象中（题目条目 + 索引），重新加载时在后台构建新的Bank，
+ * 完成后一次替换引用（写时复制），读请求始终看到完整的旧题库或新题库，不会被加载阻塞
  */
 @Service
 @Slf4j
 public class QuestionService {
 
-    // 使用ConcurrentHashMap保证并发安全
-    private final Map<Long, Question> questionBank = new ConcurrentHashMap<>();
+    // 当前题库，重新加载时整体替换
+    private volatile Bank bank = new Bank();
+
+    // 题库版本，题目新增、修改、删除时递增，依赖题目内容的缓存据此判断是否需要重建
+    private final AtomicLong bankVersion = new AtomicLong();
+
+    private final ObjectMapper objectMapper;
+    private final QuestionBankProperties bankProperties;
+    private final QuestionStatsProperties statsProperties;
+    private final QuestionBankLoader bankLoader;
+
+    // 内置默认题库（题库目录为空时使用）
+    private static final String DEFAULT_BANK = "questions/default.jsonl";
+
+    // 文件变化后等待目录静止的时间（毫秒），避免复制大文件时反复重新加载
+    private static final long RELOAD_QUIET_MILLIS = 500;
+
+    // 加载时最多逐条打印的重复题目ID数
+    private static final int MAX_LOGGED_DUPLICATES = 20;
+
+    // 题库目录监听
+    private WatchService watchService;
+    private Thread watcher;
     
-    // 用户答题记录，使用ConcurrentHashMap保证并发安全
-    private final Map<Long, UserAnswer> userAnswers = new ConcurrentHashMap<>();
+    // 用户ID -> 该用户的答题记录日志（只追加，按提交时间有序）
+    private final Map<Long, AnswerLog> answerLogs = new ConcurrentHashMap<>();
+
+    // 用户ID -> 该用户的答题统计，提交时增量累加
+    private final Map<Long, UserAnswerStats> userStats = new ConcurrentHashMap<>();
+
+    // 题目ID -> 该题的作答统计（练习和比赛共用），题库重新加载后按ID延续
+    private final Map<Long, QuestionStats> questionStats = new ConcurrentHashMap<>();
+
+    // 自适应选题：用户能力分、题目难度分及按难度分排序的索引
+    private final AdaptiveSelector adaptiveSelector = new AdaptiveSelector();
+
+    // 用户ID -> 该用户的错题复习队列，第一次答错时创建
+    private final Map<Long, ReviewQueue> reviewQueues = new ConcurrentHashMap<>();
+
+    // 错题复习单次最多取出的题目数
+    private static final int MAX_REVIEW_COUNT = 100;
+
+    // 自适应选题时排除最近答过的题目数
+    private static final int ADAPTIVE_RECENT_EXCLUDE = 50;
+
+    // 自适应选题单次最多返回的题目数
+    private static final int MAX_ADAPTIVE_COUNT = 100;
+
+    // 答题历史每页最大条数
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    // 题目统计列表（管理员）单次最多返回的题目数
+    private static final int MAX_QUESTION_STATS_LIMIT = 100;
     
     // 答题记录ID生成器
     private final AtomicLong answerIdGenerator = new AtomicLong(1);
 
-    public QuestionService() {
-        // 初始化题库（实际项目应该从数据库加载）
-        initQuestionBank();
+    public QuestionService(ObjectMapper objectMapper, QuestionBankProperties bankProperties,
+                           QuestionStatsProperties statsProperties) {
+        this.objectMapper = objectMapper;
+        this.bankProperties = bankProperties;
+        this.statsProperties = statsProperties;
+        this.bankLoader = new QuestionBankLoader(objectMapper);
     }
 
     /**
-     * 初始化题库
+     * 启动时加载题库，并开始监听题库目录
      */
+    @PostConstruct
     private void initQuestionBank() {
-        // 题目1
-        Question q1 = new Question();
-        q1.setId(1L);
-        q1.setContent("下列各项中，不属于我国古代四大发明的是（  ）");
-        q1.setType("choice");
-        q1.setOptions(Arrays.asList("A.造纸术", "B.针灸术", "C.火药", "D.活字印刷术"));
-        q1.setAnswer("B");
-        q1.setDifficulty(2);
-        q1.setScore(10);
-        q1.setCreateTime(LocalDateTime.now());
-        questionBank.put(q1.getId(), q1);
-
-        // 题目2
-        Question q2 = new Question();
-        q2.setId(2L);
-        q2.setContent("甲、乙两人在周长为400米的环形跑道上同时同地同向而行，甲的速度是每秒6米，乙的速度是每秒4米，那么甲第一次追上乙需要多少秒？（  ）");
-        q2.setType("choice");
-        q2.setOptions(Arrays.asList("A.100", "B.150", "C.200", "D.250"));
-        q2.setAnswer("C");
-        q2.setDifficulty(3);
-        q2.setScore(15);
-        q2.setCreateTime(LocalDateTime.now());
-        questionBank.put(q2.getId(), q2);
-
-        // 题目3
-        Question q3 = new Question();
-        q3.setId(3L);
-        q3.setContent("在如今浅阅读盛行的时代，一边是快餐式、碎片式阅读的轻松，一边是慢读、细读的沉重，经典自然免不了有点______的味道。就阅读是一种学习、一种对自我的提升而言，浅阅读并不是真正的阅读，长久沉浸在浅阅读的习惯之中，也只会让人离那些最好的书籍愈来愈远。然而，只是______对经典的珍重，却不如对于经典真实的理解更为重要。依次填入划横线部分最恰当的一项是（  ）");
-        q3.setType("choice");
-        q3.setOptions(Arrays.asList("A.阳春白雪 提倡", "B.曲高和寡 呼唤", "C.孤芳自赏 强调", "D.凄风苦雨 苛求"));
-        q3.setAnswer("B");
-        q3.setDifficulty(4);
-        q3.setScore(20);
-        q3.setCreateTime(LocalDateTime.now());
-        questionBank.put(q3.getId(), q3);
-
-        // 题目4
-        Question q4 = new Question();
-        q4.setId(4L);
-        q4.setContent("某工厂有甲、乙、丙三个车间，甲车间的人数是乙车间的\\(\\frac{2}{3}\\)，乙车间的人数是丙车间的\\(\\frac{3}{4}\\)，已知丙车间有80人，那么甲车间有多少人？（  ）");
-        q4.setType("choice");
-        q4.setOptions(Arrays.asList("A.40", "B.50", "C.60", "D.70"));
-        q4.setAnswer("A");
-        q4.setDifficulty(3);
-        q4.setScore(15);
-        q4.setCreateTime(LocalDateTime.now());
-        questionBank.put(q4.getId(), q4);
-
-        // 题目5
-        Question q5 = new Question();
-        q5.setId(5L);
-        q5.setContent("所有的聪明人都是近视眼，我近视得很厉害，所以我很聪明。以下哪项与上述推理的逻辑结构一致？（  ）");
-        q5.setType("choice");
-        q5.setOptions(Arrays.asList(
-            "A.我是个笨人，因为所有的聪明人都是近视眼，而我的视力那么好",
-            "B.所有的猪都有四条腿，但这种动物有八条腿，所以它不是猪",
-            "C.小陈十分高兴，所以小陈一定长得很胖；因为高兴的人都能长胖",
-            "D.所有的鸡都是尖嘴，这种总在树上呆着的鸟是尖嘴，所以它是鸡"
-        ));
-        q5.setAnswer("D");
-        q5.setDifficulty(5);
-        q5.setScore(25);
-        q5.setCreateTime(LocalDateTime.now());
-        questionBank.put(q5.getId(), q5);
-
-        log.info("题库初始化完成，共加载 {} 道题目", questionBank.size());
+        reloadBank();
+        if (bankProperties.isWatch()) {
+            startWatcher();
+        }
+    }
+
+    @PreDestroy
+    private void stopWatcher() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("关闭题库目录监听失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 从题库目录重新加载题库：各文件并行流式解析，全部成功后整体替换当前题库
+     * 任一文件读取失败则保留当前题库；加载期间的读请求继续使用当前题库
+     * 手动新增、修改、删除的题目不写回文件，重新加载后以文件为准
+     */
+    public synchronized void reloadBank() {
+        long start = System.nanoTime();
+        Path dir = Paths.get(bankProperties.getDir());
+        List<Path> files;
+        try {
+            files = QuestionBankLoader.listBankFiles(dir);
+        } catch (IOException e) {
+            log.error("读取题库目录 {} 失败，保留当前题库", dir, e);
+            return;
+        }
+
+        Bank loaded = new Bank();
+        try {
+            if (files.isEmpty()) {
+                loadDefaultBank(loaded);
+            } else {
+                loadFiles(files, loaded);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("加载题库失败，保留当前题库", e);
+            return;
+        }
+        for (QuestionEntry entry : loaded.entries.values()) {
+            loaded.index.add(entry.entity);
+            adaptiveSelector.add(entry.entity.getId(), entry.entity.getDifficulty());
+        }
+
+        bank = loaded;
+        bankVersion.incrementAndGet();
+        adaptiveSelector.retain(loaded.entries::containsKey);
+        log.info("题库加载完成，来源: {}，文件数: {}，题目数: {}，耗时 {} ms",
+                files.isEmpty() ? "内置默认题库" : dir.toAbsolutePath(), files.size(),
+                loaded.entries.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 并行解析多个文件，每个文件一个任务，各自生成条目列表；
+     * 全部解析完成后按文件名顺序合并，同一ID以排在后面的文件（同一文件内以后出现的行）为准
+     */
+    private void loadFiles(List<Path> files, Bank loaded) throws IOException {
+        int threads = Math.max(1, Math.min(files.size(), bankProperties.getLoadThreads()));
+        ExecutorService loaders = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "question-bank-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<List<QuestionEntry>>> results = new ArrayList<>(files.size());
+        try {
+            for (Path file : files) {
+                results.add(loaders.submit(() -> {
+                    long fileStart = System.nanoTime();
+                    List<QuestionEntry> entries = new ArrayList<>();
+                    long count = bankLoader.load(file, question -> entries.add(materialize(question)));
+                    log.info("题库文件 {} 解析完成，题目数: {}，耗时 {} ms",
+                            file.getFileName(), count, (System.nanoTime() - fileStart) / 1_000_000);
+                    return entries;
+                }));
+            }
+
+            int duplicates = 0;
+            for (int i = 0; i < files.size(); i++) {
+                for (QuestionEntry entry : results.get(i).get()) {
+                    if (loaded.entries.put(entry.entity.getId(), entry) != null
+                            && ++duplicates <= MAX_LOGGED_DUPLICATES) {
+                        log.warn("题目ID {} 重复，使用文件 {} 中的版本", entry.entity.getId(),
+                                files.get(i).getFileName());
+                    }
+                }
+            }
+            if (duplicates > 0) {
+                log.warn("题库文件中共有 {} 处题目ID重复，均以文件名排序靠后的版本为准", duplicates);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("加载题库被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException io ? io : new IOException(cause);
+        } finally {
+            loaders.shutdownNow();
+        }
+    }
+
+    private void loadDefaultBank(Bank loaded) throws IOException {
+        InputStream in = QuestionService.class.getClassLoader().getResourceAsStream(DEFAULT_BANK);
+        if (in == null) {
+            throw new IOException("内置题库不存在: " + DEFAULT_BANK);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            bankLoader.loadJsonLines(reader, DEFAULT_BANK,
+                    question -> loaded.entries.put(question.getId(), materialize(question)));
+        }
+    }
+
+    /**
+     * 监听题库目录，有题库文件新增、修改、删除时重新加载
+     */
+    private void startWatcher() {
+        Path dir = Paths.get(bankProperties.getDir());
+        try {
+            Files.createDirectories(dir);
+            watchService = dir.getFileSystem().newWatchService();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            log.warn("无法监听题库目录 {}，题库文件变化不会自动加载: {}", dir, e.getMessage());
+            return;
+        }
+        watcher = new Thread(this::watchLoop, "question-bank-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                boolean changed = drainEvents(watchService.take());
+                // 等目录静止后再加载，一次加载覆盖期间的所有变化
+                WatchKey key;
+                while ((key = watchService.poll(RELOAD_QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drainEvents(key);
+                }
+                if (changed) {
+                    log.info("检测到题库文件变化，重新加载题库");
+                    reloadBank();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("题库目录监听已停止");
+        }
+    }
+
+    private static boolean drainEvents(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path file && QuestionBankLoader.isBankFile(file)) {
+                changed = true;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * 新增或更新题目：生成只读视图和JSON后整体替换题目条目，并重建索引
+     */
+    public synchronized void saveQuestion(Question question) {
+        if (question.getId() == null) {
+            throw new BusinessException("题目ID不能为空");
+        }
+        Bank current = bank;
+        QuestionEntry existing = current.entries.get(question.getId());
+        if (question.getCreateTime() == null) {
+            question.setCreateTime(existing != null ? existing.entity.getCreateTime() : LocalDateTime.now());
+        }
+        if (existing != null) {
+            question.setUpdateTime(LocalDateTime.now());
+        }
+
+        current.entries.put(question.getId(), materialize(question));
+        current.index.add(question);
+        adaptiveSelector.add(question.getId(), question.getDifficulty());
+        bankVersion.incrementAndGet();
+    }
+
+    /**
+     * 删除题目
+     */
+    public synchronized void removeQuestion(Long questionId) {
+        Bank current = bank;
+        if (current.entries.remove(questionId) != null) {
+            current.index.remove(questionId);
+            adaptiveSelector.remove(questionId);
+            bankVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 题库版本，题目有任何变化都会递增
+     */
+    public long getBankVersion() {
+        return bankVersion.get();
     }
 
     /**
@@ -113,62 +341,118 @@ public class QuestionService {
      * 不返回答案
      */
     public QuestionResponse getQuestion(Long questionId) {
-        Question question = questionBank.get(questionId);
-        if (question == null) {
-            throw new BusinessException("题目不存在");
-        }
-        
-        return convertToResponse(question);
+        return getEntry(questionId).view;
+    }
+
+    /**
+     * 获取单个题目的预序列化JSON（不含答案），接口直接输出
+     */
+    public RawValue getQuestionJson(Long questionId) {
+        return getEntry(questionId).json;
+    }
+
+    /**
+     * 获取单个题目的UTF-8编码JSON，供拼接比赛题目列表使用
+     */
+    Utf8Json getQuestionUtf8(Long questionId) {
+        return getEntry(questionId).utf8;
     }
 
     /**
      * 获取题目实体（包含答案，仅供内部服务使用）
      */
     public Question getQuestionEntity(Long questionId) {
-        Question question = questionBank.get(questionId);
-        if (question == null) {
+        return getEntry(questionId).entity;
+    }
+
+    /**
+     * 获取题目条目（题目实体和判题器来自同一份题库），不存在时抛出异常
+     * 比赛判题用它取一次条目，避免两次查找之间题库被重新加载
+     */
+    QuestionEntry getEntry(Long questionId) {
+        QuestionEntry entry = bank.entries.get(questionId);
+        if (entry == null) {
             throw new BusinessException("题目不存在");
         }
-        return question;
+        return entry;
     }
 
     /**
-     * 随机获取一道题目
+     * 随机获取一道题目（预序列化JSON）
      */
-    public QuestionResponse getRandomQuestion() {
-        if (questionBank.isEmpty()) {
+    public RawValue getRandomQuestionJson() {
+        Bank current = bank;
+        long randomId = current.index.random();
+        QuestionEntry entry = randomId >= 0 ? current.entries.get(randomId) : null;
+        if (entry == null) {
             throw new BusinessException("题库为空");
         }
         
-        List<Long> questionIds = new ArrayList<>(questionBank.keySet());
-        Collections.shuffle(questionIds);
-        Long randomId = questionIds.get(0);
-        
-        return getQuestion(randomId);
+        return entry.json;
     }
 
     /**
-     * 获取多道题目
+     * 按难度范围、类型、分值范围筛选后随机获取多道题目（预序列化JSON），条件为null表示不限
      */
-    public List<QuestionResponse> getQuestions(Integer count) {
+    public List<RawValue> getQuestionsJson(Integer count, Integer minDifficulty, Integer maxDifficulty,
+                                               String type, Integer minScore, Integer maxScore) {
         if (count == null || count <= 0) {
             count = 5;
         }
         
-        if (questionBank.isEmpty()) {
-            throw new BusinessException("题库为空");
+        // 随机抽取count个不重复的题目，如果题库数量不足则全部返回
+        Bank current = bank;
+        QuestionIndex.Filter filter = new QuestionIndex.Filter(minDifficulty, maxDifficulty, type, minScore, maxScore);
+        long[] ids = current.index.sample(filter, count);
+        if (ids.length == 0) {
+            throw new BusinessException(filter.isEmpty() ? "题库为空" : "没有符合条件的题目");
         }
         
-        List<Long> questionIds = new ArrayList<>(questionBank.keySet());
-        Collections.shuffle(questionIds);
-        
-        // 取前count个题目，如果题库数量不足则全部返回
-        int actualCount = Math.min(count, questionIds.size());
-        
-        return questionIds.stream()
-                .limit(actualCount)
-                .map(this::getQuestion)
-                .collect(Collectors.toList());
+        List<RawValue> questions = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            QuestionEntry entry = current.entries.get(id);
+            // 抽取后被删除的题目直接跳过
+            if (entry != null) {
+                questions.add(entry.json);
+            }
+        }
+        return questions;
+    }
+
+    /**
+     * 自适应选题：按用户能力分挑选难度接近的题目（预序列化JSON），跳过最近答过的题目
+     */
+    public List<RawValue> getAdaptiveQuestionsJson(Long userId, Integer count) {
+        if (count == null || count <= 0) {
+            count = 5;
+        }
+        count = Math.min(count, MAX_ADAPTIVE_COUNT);
+
+        Set<Long> recent = new HashSet<>();
+        AnswerLog answerLog = answerLogs.get(userId);
+        if (answerLog != null) {
+            for (UserAnswer answer : answerLog.readBackward(answerLog.size(), ADAPTIVE_RECENT_EXCLUDE)) {
+                recent.add(answer.getQuestionId());
+            }
+        }
+
+        Bank current = bank;
+        long[] ids = adaptiveSelector.select(userId, count, recent);
+        if (ids.length == 0 && !recent.isEmpty()) {
+            // 题库比最近答过的题目还少时不再排除
+            ids = adaptiveSelector.select(userId, count, Collections.emptySet());
+        }
+        List<RawValue> questions = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            QuestionEntry entry = current.entries.get(id);
+            if (entry != null) {
+                questions.add(entry.json);
+            }
+        }
+        if (questions.isEmpty()) {
+            throw new BusinessException("题库为空");
+        }
+        return questions;
     }
 
     /**
@@ -176,75 +460,311 @@ public class QuestionService {
      */
     public SubmitAnswerResponse submitAnswer(Long userId, SubmitAnswerRequest request) {
         // 验证题目是否存在
-        Question question = questionBank.get(request.getQuestionId());
-        if (question == null) {
-            throw new BusinessException("题目不存在");
-        }
+        QuestionEntry entry = getEntry(request.getQuestionId());
+        Question question = entry.entity;
+
+        UserAnswer userAnswerRecord = grade(userId, entry, request);
 
-        // 标准化答案格式（统一转换为大写，去除空格）
-        String userAnswer = request.getAnswer().trim().toUpperCase();
-        String correctAnswer = question.getAnswer().trim().toUpperCase();
+        // 追加到该用户的答题记录日志
+        answerLogs.computeIfAbsent(userId, id -> new AnswerLog()).append(userAnswerRecord);
+        userStats.computeIfAbsent(userId, id -> new UserAnswerStats())
+                .record(question.getDifficulty(), userAnswerRecord.getIsCorrect(), userAnswerRecord.getScore());
         
-        // 判断答案是否正确
-        boolean isCorrect = userAnswer.equals(correctAnswer);
+        log.info("用户 {} 提交答案，题目ID: {}, 答案: {}, 正确: {}, 得分: {}",
+                userId, request.getQuestionId(), userAnswerRecord.getUserAnswer(),
+                userAnswerRecord.getIsCorrect(), userAnswerRecord.getScore());
+
+        // 返回结果
+        return toResponse(question, userAnswerRecord);
+    }
+
+    /**
+     * 批量提交答案（离线答题后同步）
+     * 各条答案独立判题，题目不存在或答案为空的条目返回失败原因，不影响其他条目；
+     * 判题成功的记录一次追加到答题记录日志
+     */
+    public BatchSubmitAnswerResponse submitAnswers(Long userId, List<SubmitAnswerRequest> requests) {
+        Bank current = bank;
+        UserAnswerStats stats = userStats.computeIfAbsent(userId, id -> new UserAnswerStats());
+        List<BatchSubmitAnswerResponse.Item> results = new ArrayList<>(requests.size());
+        List<UserAnswer> records = new ArrayList<>(requests.size());
+        int totalScore = 0;
+
+        for (SubmitAnswerRequest request : requests) {
+            Long questionId = request != null ? request.getQuestionId() : null;
+            String error = null;
+            QuestionEntry entry = null;
+            if (questionId == null) {
+                error = "题目ID不能为空";
+            } else if (request.getAnswer() == null || request.getAnswer().isBlank()) {
+                error = "答案不能为空";
+            } else if ((entry = current.entries.get(questionId)) == null) {
+                error = "题目不存在";
+            }
+            if (error != null) {
+                results.add(new BatchSubmitAnswerResponse.Item(questionId, false, error, null));
+                continue;
+            }
+
+            UserAnswer record = grade(userId, entry, request);
+            records.add(record);
+            stats.record(entry.entity.getDifficulty(), record.getIsCorrect(), record.getScore());
+            totalScore += record.getScore();
+            results.add(new BatchSubmitAnswerResponse.Item(questionId, true, null, toResponse(entry.entity, record)));
+        }
+
+        if (!records.isEmpty()) {
+            answerLogs.computeIfAbsent(userId, id -> new AnswerLog()).appendAll(records);
+        }
+        log.info("用户 {} 批量提交答案，共 {} 条，成功 {} 条，得分: {}",
+                userId, requests.size(), records.size(), totalScore);
+        return new BatchSubmitAnswerResponse(records.size(), totalScore, results);
+    }
+
+    /**
+     * 判题并生成答题记录
+     */
+    private UserAnswer grade(Long userId, QuestionEntry entry, SubmitAnswerRequest request) {
+        Question question = entry.entity;
+        // 判题器在入库时已按题型编译好标准答案，这里只扫描用户答案
+        boolean isCorrect = entry.matcher.matches(request.getAnswer());
         int score = isCorrect ? question.getScore() : 0;
+        recordAttempt(userId, question.getId(), isCorrect, request.getDuration());
 
-        // 保存答题记录（使用ConcurrentHashMap保证并发安全）
         UserAnswer userAnswerRecord = new UserAnswer();
         userAnswerRecord.setId(answerIdGenerator.getAndIncrement());
         userAnswerRecord.setUserId(userId);
-        userAnswerRecord.setQuestionId(request.getQuestionId());
-        userAnswerRecord.setUserAnswer(userAnswer);
+        userAnswerRecord.setQuestionId(question.getId());
+        // 记录中的答案仍按原来的格式保存（去除空格、转为大写），判题器自行处理大小写和格式差异
+        userAnswerRecord.setUserAnswer(request.getAnswer().trim().toUpperCase());
         userAnswerRecord.setIsCorrect(isCorrect);
         userAnswerRecord.setScore(score);
         userAnswerRecord.setDuration(request.getDuration());
         userAnswerRecord.setSubmitTime(LocalDateTime.now());
-        
-        userAnswers.put(userAnswerRecord.getId(), userAnswerRecord);
-        
-        log.info("用户 {} 提交答案，题目ID: {}, 答案: {}, 正确: {}, 得分: {}",
-                userId, request.getQuestionId(), userAnswer, isCorrect, score);
+        return userAnswerRecord;
+    }
 
-        // 返回结果
+    private static SubmitAnswerResponse toResponse(Question question, UserAnswer record) {
         return new SubmitAnswerResponse(
-                isCorrect,
-                score,
+                record.getIsCorrect(),
+                record.getScore(),
                 question.getAnswer(),
                 null // 解析说明可以后续添加
         );
     }
 
     /**
-     * 获取用户的答题历史
+     * 记录一次作答（练习和比赛提交都会调用）：累加题目统计，更新用户能力分和题目难度分，并调整错题复习计划
+     * @param duration 答题时长（秒），未知时为null
+     */
+    public void recordAttempt(Long userId, Long questionId, boolean isCorrect, Integer duration) {
+        QuestionStats stats = questionStats.get(questionId);
+        if (stats == null) {
+            stats = questionStats.computeIfAbsent(questionId, id -> new QuestionStats());
+        }
+        stats.record(isCorrect, duration);
+        adaptiveSelector.record(userId, questionId, isCorrect);
+
+        ReviewQueue reviewQueue = reviewQueues.get(userId);
+        if (reviewQueue == null && !isCorrect) {
+            reviewQueue = reviewQueues.computeIfAbsent(userId, id -> new ReviewQueue());
+        }
+        if (reviewQueue != null) {
+            reviewQueue.record(questionId, isCorrect, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 取出已到期的错题（预序列化JSON），已从题库删除的题目顺带移出队列
+     */
+    public ReviewResponse getReviewQuestions(Long userId, Integer count) {
+        if (count == null || count <= 0) {
+            count = 5;
+        }
+        count = Math.min(count, MAX_REVIEW_COUNT);
+        ReviewQueue reviewQueue = reviewQueues.get(userId);
+        if (reviewQueue == null) {
+            return new ReviewResponse(0, null, Collections.emptyList());
+        }
+
+        Bank current = bank;
+        long[] ids = reviewQueue.pollDue(System.currentTimeMillis(), count);
+        List<RawValue> questions = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            QuestionEntry entry = current.entries.get(id);
+            if (entry != null) {
+                questions.add(entry.json);
+            } else {
+                reviewQueue.remove(id);
+            }
+        }
+        long nextDue = reviewQueue.nextDueTime();
+        LocalDateTime nextDueTime = nextDue >= 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(nextDue), ZoneId.systemDefault()) : null;
+        return new ReviewResponse(reviewQueue.size(), nextDueTime, questions);
+    }
+
+    /**
+     * 获取单道题目的作答统计（仅管理员）
      */
-    public List<UserAnswer> getUserAnswerHistory(Long userId) {
-        return userAnswers.values().stream()
-                .filter(answer -> answer.getUserId().equals(userId))
-                .sorted(Comparator.comparing(UserAnswer::getSubmitTime).reversed())
-                .collect(Collectors.toList());
+    public QuestionStatsResponse getQuestionStats(Long userId, Long questionId) {
+        checkAdmin(userId);
+        Question question = getQuestionEntity(questionId);
+        QuestionStats stats = questionStats.get(questionId);
+        return (stats != null ? stats : new QuestionStats()).toResponse(questionId, question.getDifficulty());
+    }
+
+    /**
+     * 按作答次数从多到少列出题目统计（仅管理员）
+     */
+    public List<QuestionStatsResponse> listQuestionStats(Long userId, int limit) {
+        checkAdmin(userId);
+        limit = Math.min(Math.max(limit, 1), MAX_QUESTION_STATS_LIMIT);
+        Bank current = bank;
+        List<Map.Entry<Long, QuestionStats>> entries = new ArrayList<>(questionStats.entrySet());
+        // 先取出次数再排序，避免排序过程中计数变化
+        long[] attempts = new long[entries.size()];
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            attempts[i] = entries.get(i).getValue().attempts();
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(attempts[b], attempts[a]));
+
+        List<QuestionStatsResponse> result = new ArrayList<>(Math.min(limit, order.length));
+        for (int i = 0; i < order.length && result.size() < limit; i++) {
+            Map.Entry<Long, QuestionStats> item = entries.get(order[i]);
+            QuestionEntry entry = current.entries.get(item.getKey());
+            if (entry != null) {
+                result.add(item.getValue().toResponse(item.getKey(), entry.entity.getDifficulty()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 定期按Elo难度分校准题目难度
+     * 不直接用正确率：自适应选题把题目推给预期正确率约70%的用户，原始正确率会被拉向60%-80%，
+     * 而Elo难度分已按作答用户的能力分修正。难度有变化的题目复制实体后替换条目（视图和JSON不含难度，沿用原来的），
+     * 全部替换完成后题库版本只递增一次
+     */
+    @Scheduled(fixedDelayString = "${question.stats.calibration-interval-ms:300000}")
+    public synchronized void recalibrateDifficulty() {
+        if (!statsProperties.isCalibrationEnabled()) {
+            return;
+        }
+        Bank current = bank;
+        List<QuestionEntry> updates = new ArrayList<>();
+        for (QuestionEntry entry : current.entries.values()) {
+            long questionId = entry.entity.getId();
+            if (adaptiveSelector.questionAttempts(questionId) < statsProperties.getCalibrationMinAttempts()) {
+                continue;
+            }
+            int difficulty = AdaptiveSelector.difficultyFor(adaptiveSelector.questionRating(questionId));
+            if (!Integer.valueOf(difficulty).equals(entry.entity.getDifficulty())) {
+                Question updated = new Question();
+                BeanUtils.copyProperties(entry.entity, updated);
+                updated.setDifficulty(difficulty);
+                updated.setUpdateTime(LocalDateTime.now());
+                updates.add(new QuestionEntry(updated, entry.view, entry.utf8, entry.matcher));
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        for (QuestionEntry update : updates) {
+            current.entries.put(update.entity.getId(), update);
+            current.index.add(update.entity);
+        }
+        bankVersion.incrementAndGet();
+        log.info("题目难度校准完成，调整了 {} 道题目的难度", updates.size());
+    }
+
+    private void checkAdmin(Long userId) {
+        if (userId == null || !statsProperties.getAdminUserIds().contains(userId)) {
+            throw new BusinessException("无权查看题目统计");
+        }
+    }
+
+    /**
+     * 分页获取用户的答题历史，按提交时间从新到旧
+     * @param cursor 上一页返回的nextCursor，为null时从最新一条开始
+     * @param limit 每页数量
+     */
+    public AnswerHistoryPage getUserAnswerHistory(Long userId, Integer cursor, int limit) {
+        limit = Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE);
+        AnswerLog answerLog = answerLogs.get(userId);
+        if (answerLog == null) {
+            return new AnswerHistoryPage(0, null, Collections.emptyList());
+        }
+
+        int total = answerLog.size();
+        int before = cursor != null ? Math.max(cursor, 0) : total;
+        List<UserAnswer> items = answerLog.readBackward(before, limit);
+        int next = Math.min(before, total) - items.size();
+        return new AnswerHistoryPage(total, next > 0 ? next : null, items);
     }
 
     /**
      * 获取用户的总得分
      */
     public Integer getUserTotalScore(Long userId) {
-        return userAnswers.values().stream()
-                .filter(answer -> answer.getUserId().equals(userId))
-                .mapToInt(UserAnswer::getScore)
-                .sum();
+        UserAnswerStats stats = userStats.get(userId);
+        return stats != null ? (int) stats.totalScore() : 0;
+    }
+
+    /**
+     * 获取用户的答题统计：总得分、答题次数、答对次数、正确率及按难度的正确率
+     */
+    public UserStatsResponse getUserStats(Long userId) {
+        UserAnswerStats stats = userStats.get(userId);
+        double rating = adaptiveSelector.userRating(userId);
+        return stats != null ? stats.toResponse(rating)
+                : new UserStatsResponse(0L, 0L, 0L, 0.0, Collections.emptyList(), rating);
     }
 
     /**
-     * 将Question转换为QuestionResponse（不包含答案）
+     * 生成题目条目：不含答案的只读视图、该视图序列化后的UTF-8字节，以及按题型编译好的判题器
      */
-    private QuestionResponse convertToResponse(Question question) {
-        QuestionResponse response = new QuestionResponse();
-        response.setId(question.getId());
-        response.setQuestion(question.getContent());
-        response.setImageUrl(question.getImageUrl());
-        response.setOptions(question.getOptions());
-        response.setType(question.getType());
-        response.setScore(question.getScore());
-        return response;
+    private QuestionEntry materialize(Question question) {
+        List<String> options = question.getOptions() != null
+                ? Collections.unmodifiableList(new ArrayList<>(question.getOptions())) : null;
+        QuestionResponse view = new QuestionResponse(question.getId(), question.getContent(),
+                question.getImageUrl(), options, question.getType(), question.getScore());
+        try {
+            // 只保存UTF-8字节，输出时只做内存拷贝
+            Utf8Json json = new Utf8Json(objectMapper.writeValueAsBytes(view));
+            return new QuestionEntry(question, view, json, AnswerMatcher.compile(question));
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("题目序列化失败", e);
+        }
+    }
+
+    /**
+     * 题库：题目ID -> 题目条目，以及按同一批题目建立的索引
+     */
+    private static final class Bank {
+        final Map<Long, QuestionEntry> entries = new ConcurrentHashMap<>();
+        // 随机抽题不再复制和洗牌整个题库，按难度、类型、分值筛选走位图
+        final QuestionIndex index = new QuestionIndex();
+    }
+
+    /**
+     * 题库条目（实体、不含答案的只读视图、预序列化JSON），整体替换保证三者一致
+     */
+    static final class QuestionEntry {
+        final Question entity;
+        final QuestionResponse view;
+        final Utf8Json utf8;
+        final RawValue json;
+        final AnswerMatcher matcher;
+
+        QuestionEntry(Question entity, QuestionResponse view, Utf8Json utf8, AnswerMatcher matcher) {
+            this.entity = entity;
+            this.view = view;
+            this.utf8 = utf8;
+            this.json = new RawValue(utf8);
+            this.matcher = matcher;
+        }
     }
 }
\ No newline at end of file
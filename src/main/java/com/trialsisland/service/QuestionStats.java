@@ -0,0 +1,81 @@
+package com.trialsisland.service;
+
+import com.trialsisland.dto.QuestionStatsResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单道题目的作答统计，练习和比赛提交时都会累加
+ * 所有计数器都是LongAdder，高并发提交同一道题时各线程写各自的分段，提交路径不加锁；
+ * 读取（管理接口、难度校准任务）时对分段求和，结果是近似一致的快照
+ */
+class QuestionStats {
+
+    // 答题时长直方图各桶的上界（秒，不含），最后一桶为300秒及以上
+    private static final int[] DURATION_BOUNDS = {5, 10, 20, 30, 60, 120, 300};
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+    // 只统计带时长的提交
+    private final LongAdder timedAttempts = new LongAdder();
+    private final LongAdder totalDuration = new LongAdder();
+    private final LongAdder[] durationHistogram = new LongAdder[DURATION_BOUNDS.length + 1];
+
+    QuestionStats() {
+        for (int i = 0; i < durationHistogram.length; i++) {
+            durationHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次作答
+     * @param duration 答题时长（秒），未知时为null
+     */
+    void record(boolean isCorrect, Integer duration) {
+        attempts.increment();
+        if (isCorrect) {
+            correct.increment();
+        }
+        if (duration != null && duration >= 0) {
+            timedAttempts.increment();
+            totalDuration.add(duration);
+            durationHistogram[bucket(duration)].increment();
+        }
+    }
+
+    long attempts() {
+        return attempts.sum();
+    }
+
+    long correct() {
+        return correct.sum();
+    }
+
+    QuestionStatsResponse toResponse(Long questionId, Integer difficulty) {
+        long count = attempts.sum();
+        long right = correct.sum();
+        long timed = timedAttempts.sum();
+        List<QuestionStatsResponse.DurationBucket> buckets = new ArrayList<>(durationHistogram.length);
+        for (int i = 0; i < durationHistogram.length; i++) {
+            buckets.add(new QuestionStatsResponse.DurationBucket(
+                    i == 0 ? 0 : DURATION_BOUNDS[i - 1],
+                    i < DURATION_BOUNDS.length ? DURATION_BOUNDS[i] : null,
+                    durationHistogram[i].sum()));
+        }
+        return new QuestionStatsResponse(questionId, difficulty, count, right,
+                count == 0 ? 0 : Math.round(right * 10000.0 / count) / 10000.0,
+                timed == 0 ? null : Math.round(totalDuration.sum() * 10.0 / timed) / 10.0,
+                buckets);
+    }
+
+    private static int bucket(int duration) {
+        for (int i = 0; i < DURATION_BOUNDS.length; i++) {
+            if (duration < DURATION_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return DURATION_BOUNDS.length;
+    }
+}
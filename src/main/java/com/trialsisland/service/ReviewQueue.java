@@ -0,0 +1,224 @@
+package com.trialsisland.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单个用户的错题复习队列（SM-2间隔重复）
+ * 答错的题目入队，10分钟后到期；之后每次答对按SM-2拉长间隔（1天、6天、上次间隔×易度因子），
+ * 答错则重新从10分钟开始并降低易度因子；间隔超过60天视为已掌握，移出队列
+ * 队列是按到期时间排序的索引最小堆，各字段存放在并行数组中，题目ID -> 堆下标另存一份，
+ * 取出到期题目、更新和删除都是O(log n)；每个用户最多MAX_ITEMS道题，满了淘汰最晚到期的
+ * 线程安全由对象锁保证（只锁这一个用户）
+ */
+class ReviewQueue {
+
+    // 每个用户最多保存的题目数
+    static final int MAX_ITEMS = 500;
+
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final int INITIAL_CAPACITY = 8;
+    // 答错后的重学间隔（分钟）
+    private static final int RELEARN_MINUTES = 10;
+    // 取出后多久没有作答会再次到期（分钟），避免未作答的题目丢失
+    private static final int LEASE_MINUTES = 10;
+    // 答对第1、2次后的间隔（分钟）
+    private static final int FIRST_INTERVAL_MINUTES = 24 * 60;
+    private static final int SECOND_INTERVAL_MINUTES = 6 * 24 * 60;
+    // 间隔超过该值视为已掌握
+    private static final int GRADUATE_MINUTES = 60 * 24 * 60;
+    // 易度因子（百分数）：初始2.5，最低1.3
+    private static final short INITIAL_EASE = 250;
+    private static final short MIN_EASE = 130;
+    // SM-2中答错（质量2）时易度因子的变化：0.1 - 3 * (0.08 + 3 * 0.02) = -0.32；答对按质量4计，不变
+    private static final short FAIL_EASE_DELTA = -32;
+
+    // 题目ID -> 堆下标
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private long[] questionIds = new long[INITIAL_CAPACITY];
+    private long[] dueTimes = new long[INITIAL_CAPACITY];
+    private int[] intervals = new int[INITIAL_CAPACITY];
+    private short[] eases = new short[INITIAL_CAPACITY];
+    private byte[] repetitions = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * 按一次作答结果调整复习计划：答错入队或重新计时，答对只影响已在队列中的题目
+     * @param now 当前时间（毫秒）
+     */
+    synchronized void record(long questionId, boolean isCorrect, long now) {
+        Integer position = positions.get(questionId);
+        if (!isCorrect) {
+            if (position == null) {
+                if (size == MAX_ITEMS) {
+                    removeAt(latestDue());
+                }
+                position = append(questionId);
+                eases[position] = INITIAL_EASE;
+            } else {
+                eases[position] = (short) Math.max(MIN_EASE, eases[position] + FAIL_EASE_DELTA);
+            }
+            repetitions[position] = 0;
+            intervals[position] = 0;
+            dueTimes[position] = now + RELEARN_MINUTES * MINUTE_MILLIS;
+            fix(position);
+            return;
+        }
+
+        if (position == null) {
+            return;
+        }
+        int interval;
+        if (repetitions[position] == 0) {
+            interval = FIRST_INTERVAL_MINUTES;
+        } else if (repetitions[position] == 1) {
+            interval = SECOND_INTERVAL_MINUTES;
+        } else {
+            interval = (int) Math.min((long) intervals[position] * eases[position] / 100, Integer.MAX_VALUE);
+        }
+        if (interval > GRADUATE_MINUTES) {
+            removeAt(position);
+            return;
+        }
+        repetitions[position]++;
+        intervals[position] = interval;
+        dueTimes[position] = now + interval * MINUTE_MILLIS;
+        fix(position);
+    }
+
+    /**
+     * 取出最多limit道已到期的题目，按到期先后排列；取出的题目顺延LEASE_MINUTES，作答后按结果重新计时
+     */
+    synchronized long[] pollDue(long now, int limit) {
+        long[] result = new long[Math.min(limit, size)];
+        int count = 0;
+        while (count < result.length && dueTimes[0] <= now) {
+            result[count++] = questionIds[0];
+            dueTimes[0] = now + LEASE_MINUTES * MINUTE_MILLIS;
+            siftDown(0);
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 移除题目（题目已从题库删除时调用）
+     */
+    synchronized void remove(long questionId) {
+        Integer position = positions.get(questionId);
+        if (position != null) {
+            removeAt(position);
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 最早的到期时间（毫秒），队列为空返回-1
+     */
+    synchronized long nextDueTime() {
+        return size > 0 ? dueTimes[0] : -1;
+    }
+
+    private int append(long questionId) {
+        if (size == questionIds.length) {
+            int capacity = Math.min(questionIds.length * 2, MAX_ITEMS);
+            questionIds = Arrays.copyOf(questionIds, capacity);
+            dueTimes = Arrays.copyOf(dueTimes, capacity);
+            intervals = Arrays.copyOf(intervals, capacity);
+            eases = Arrays.copyOf(eases, capacity);
+            repetitions = Arrays.copyOf(repetitions, capacity);
+        }
+        int position = size++;
+        questionIds[position] = questionId;
+        dueTimes[position] = Long.MAX_VALUE;
+        positions.put(questionId, position);
+        return position;
+    }
+
+    /**
+     * 用最后一个元素填补空位后重新调整堆
+     */
+    private void removeAt(int position) {
+        positions.remove(questionIds[position]);
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            fix(position);
+        }
+    }
+
+    /**
+     * 最晚到期的题目一定在叶子节点（下标 >= size/2）中，只需扫描一半
+     */
+    private int latestDue() {
+        int latest = size / 2;
+        for (int i = latest + 1; i < size; i++) {
+            if (dueTimes[i] > dueTimes[latest]) {
+                latest = i;
+            }
+        }
+        return latest;
+    }
+
+    private void fix(int position) {
+        if (siftUp(position) == position) {
+            siftDown(position);
+        }
+    }
+
+    private int siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (dueTimes[parent] <= dueTimes[position]) {
+                break;
+            }
+            swap(parent, position);
+            position = parent;
+        }
+        return position;
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                return;
+            }
+            if (child + 1 < size && dueTimes[child + 1] < dueTimes[child]) {
+                child++;
+            }
+            if (dueTimes[position] <= dueTimes[child]) {
+                return;
+            }
+            swap(position, child);
+            position = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long questionId = questionIds[a];
+        long dueTime = dueTimes[a];
+        int interval = intervals[a];
+        short ease = eases[a];
+        byte repetition = repetitions[a];
+        move(b, a);
+        questionIds[b] = questionId;
+        dueTimes[b] = dueTime;
+        intervals[b] = interval;
+        eases[b] = ease;
+        repetitions[b] = repetition;
+        positions.put(questionId, b);
+    }
+
+    private void move(int from, int to) {
+        questionIds[to] = questionIds[from];
+        dueTimes[to] = dueTimes[from];
+        intervals[to] = intervals[from];
+        eases[to] = eases[from];
+        repetitions[to] = repetitions[from];
+        positions.put(questionIds[to], to);
+    }
+}
@@ -0,0 +1,162 @@
+package com.trialsisland.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 哈希时间轮定时器
+ * 新任务先放入无锁队列（O(1)），由工作线程在每个刻度转入对应槽位；
+ * 每个刻度只遍历当前槽位，到期任务交给executor执行，工作线程本身不做业务处理
+ * 适合大量、允许刻度级误差的到期事件（比赛状态切换、答题超时等）
+ */
+@Slf4j
+class TimingWheel {
+
+    private final long tickMillis;
+    private final Timeout[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean running = true;
+    private Thread worker;
+    private long startTime;
+    private long tick;
+
+    /**
+     * @param tickMillis 刻度时长（毫秒）
+     * @param wheelSize 槽位数，向上取整为2的幂
+     * @param executor 到期任务的执行线程池
+     */
+    TimingWheel(long tickMillis, int wheelSize, Executor executor) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.wheel = new Timeout[size];
+        this.mask = size - 1;
+        this.executor = executor;
+    }
+
+    /**
+     * 在指定时间点（毫秒时间戳）执行任务，已过期的任务在下一个刻度执行
+     */
+    Timeout schedule(long deadlineMillis, Runnable task) {
+        start();
+        Timeout timeout = new Timeout(deadlineMillis, task);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止工作线程，未到期的任务将被丢弃
+     */
+    void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            startTime = System.currentTimeMillis();
+            worker = new Thread(this::run, "contest-timing-wheel");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long sleepMillis = startTime + (tick + 1) * tickMillis - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            transferPending();
+            expire((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    /**
+     * 把新任务放入槽位，并计算还需要转几圈
+     */
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long calculated = (timeout.deadline - startTime) / tickMillis;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            int index = (int) (Math.max(calculated, tick) & mask);
+            timeout.next = wheel[index];
+            wheel[index] = timeout;
+        }
+    }
+
+    private void expire(int index) {
+        Timeout prev = null;
+        Timeout cur = wheel[index];
+        while (cur != null) {
+            Timeout next = cur.next;
+            boolean remove = cur.cancelled;
+            if (!remove && cur.remainingRounds <= 0) {
+                remove = true;
+                try {
+                    executor.execute(cur.task);
+                } catch (RejectedExecutionException e) {
+                    log.warn("定时任务被拒绝执行: {}", e.getMessage());
+                }
+            } else if (!remove) {
+                cur.remainingRounds--;
+            }
+
+            if (remove) {
+                if (prev == null) {
+                    wheel[index] = next;
+                } else {
+                    prev.next = next;
+                }
+                cur.next = null;
+            } else {
+                prev = cur;
+            }
+            cur = next;
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    static final class Timeout {
+        final long deadline;
+        final Runnable task;
+        volatile boolean cancelled;
+        long remainingRounds;
+        Timeout next;
+
+        Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        /**
+         * 取消任务，槽位中的节点在下次经过时移除
+         */
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.trialsisland.service;
+
+import com.trialsisland.dto.UserStatsResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个用户的答题统计，提交时增量累加
+ * 计数器使用LongAdder，并发提交时各线程写各自的分段，不加锁也不会在同一个CAS上自旋；
+ * 读取时把分段求和，代价与答题数量无关
+ */
+class UserAnswerStats {
+
+    // 题目难度范围1-5，超出范围的归到边界
+    private static final int MIN_DIFFICULTY = 1;
+    private static final int MAX_DIFFICULTY = 5;
+
+    private final LongAdder totalScore = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder correct = new LongAdder();
+    // 下标为难度-1
+    private final LongAdder[] difficultyAttempts = newAdders();
+    private final LongAdder[] difficultyCorrect = newAdders();
+
+    void record(Integer difficulty, boolean isCorrect, int score) {
+        int index = Math.min(Math.max(difficulty != null ? difficulty : MIN_DIFFICULTY, MIN_DIFFICULTY),
+                MAX_DIFFICULTY) - MIN_DIFFICULTY;
+        attempts.increment();
+        difficultyAttempts[index].increment();
+        if (isCorrect) {
+            correct.increment();
+            difficultyCorrect[index].increment();
+        }
+        if (score != 0) {
+            totalScore.add(score);
+        }
+    }
+
+    long totalScore() {
+        return totalScore.sum();
+    }
+
+    UserStatsResponse toResponse(double rating) {
+        List<UserStatsResponse.DifficultyStats> byDifficulty = new ArrayList<>();
+        for (int i = 0; i < difficultyAttempts.length; i++) {
+            long count = difficultyAttempts[i].sum();
+            if (count > 0) {
+                long right = difficultyCorrect[i].sum();
+                byDifficulty.add(new UserStatsResponse.DifficultyStats(
+                        i + MIN_DIFFICULTY, count, right, accuracy(right, count)));
+            }
+        }
+        long count = attempts.sum();
+        long right = correct.sum();
+        return new UserStatsResponse(totalScore.sum(), count, right, accuracy(right, count), byDifficulty,
+                Math.round(rating * 10) / 10.0);
+    }
+
+    /**
+     * 正确率，保留4位小数
+     */
+    private static double accuracy(long right, long count) {
+        return count == 0 ? 0 : Math.round(right * 10000.0 / count) / 10000.0;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[MAX_DIFFICULTY - MIN_DIFFICULTY + 1];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,152 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 预先编码好的JSON片段，只保存UTF-8字节
+ * 作为RawValue输出时Jackson直接把字节拷贝到输出缓冲区；
+ * 与SerializedString相比不再同时保留一份UTF-16的String，题库较大时内存占用约减半
+ * getValue等字符形式的方法按需解码，只用于非UTF-8输出等少见情况
+ */
+final class Utf8Json implements SerializableString {
+
+    private final byte[] bytes;
+
+    Utf8Json(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * 把多个JSON片段拼接为JSON数组
+     */
+    static Utf8Json array(Iterable<Utf8Json> elements) {
+        int length = 2;
+        int count = 0;
+        for (Utf8Json element : elements) {
+            length += element.bytes.length;
+            count++;
+        }
+        // 元素之间的逗号
+        length += Math.max(count - 1, 0);
+        byte[] result = new byte[length];
+        int position = 0;
+        result[position++] = '[';
+        for (Utf8Json element : elements) {
+            if (position > 1) {
+                result[position++] = ',';
+            }
+            System.arraycopy(element.bytes, 0, result, position, element.bytes.length);
+            position += element.bytes.length;
+        }
+        result[position] = ']';
+        return new Utf8Json(result);
+    }
+
+    @Override
+    public String getValue() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int charLength() {
+        return getValue().length();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+        return JsonStringEncoder.getInstance().quoteAsString(getValue());
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+        return bytes;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(getValue());
+    }
+
+    @Override
+    public int appendQuotedUTF8(byte[] buffer, int offset) {
+        return append(asQuotedUTF8(), buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(char[] buffer, int offset) {
+        char[] chars = asQuotedChars();
+        if (offset + chars.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(chars, 0, buffer, offset, chars.length);
+        return chars.length;
+    }
+
+    @Override
+    public int appendUnquotedUTF8(byte[] buffer, int offset) {
+        return append(bytes, buffer, offset);
+    }
+
+    @Override
+    public int appendUnquoted(char[] buffer, int offset) {
+        String value = getValue();
+        if (offset + value.length() > buffer.length) {
+            return -1;
+        }
+        value.getChars(0, value.length(), buffer, offset);
+        return value.length();
+    }
+
+    @Override
+    public int writeQuotedUTF8(OutputStream out) throws IOException {
+        byte[] quoted = asQuotedUTF8();
+        out.write(quoted);
+        return quoted.length;
+    }
+
+    @Override
+    public int writeUnquotedUTF8(OutputStream out) throws IOException {
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(ByteBuffer buffer) {
+        return put(asQuotedUTF8(), buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(ByteBuffer buffer) {
+        return put(bytes, buffer);
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+
+    /**
+     * 放不下时返回-1，由调用方改为分段写出
+     */
+    private static int append(byte[] source, byte[] buffer, int offset) {
+        if (offset + source.length > buffer.length) {
+            return -1;
+        }
+        System.arraycopy(source, 0, buffer, offset, source.length);
+        return source.length;
+    }
+
+    private static int put(byte[] source, ByteBuffer buffer) {
+        if (source.length > buffer.remaining()) {
+            return -1;
+        }
+        buffer.put(source);
+        return source.length;
+    }
+}
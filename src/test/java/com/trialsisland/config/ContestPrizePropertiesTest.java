@@ -0,0 +1,53 @@
+package com.trialsisland.config;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContestPrizePropertiesTest {
+
+    private static ValidatorFactory factory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        factory.close();
+    }
+
+    @Test
+    void defaultTiersAreValid() {
+        assertTrue(validator.validate(new ContestPrizeProperties()).isEmpty());
+    }
+
+    @Test
+    void rejectsSharesAboveWholePool() {
+        ContestPrizeProperties properties = new ContestPrizeProperties();
+        properties.setTiers(List.of(
+                new ContestPrizeProperties.Tier(1, null, 0.6),
+                new ContestPrizeProperties.Tier(null, 10.0, 0.5)));
+        assertEquals(1, validator.validate(properties).size());
+    }
+
+    @Test
+    void rejectsNegativeShare() {
+        ContestPrizeProperties properties = new ContestPrizeProperties();
+        properties.setTiers(List.of(
+                new ContestPrizeProperties.Tier(1, null, 1.2),
+                new ContestPrizeProperties.Tier(1, null, -0.3)));
+        assertEquals(1, validator.validate(properties).size());
+    }
+}
@@ -0,0 +1,114 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveSelectorTest {
+
+    // 每个难度20道题，题目ID = 难度 * 100 + 序号
+    private static final int PER_LEVEL = 20;
+
+    @Test
+    void selectsQuestionsNearTheUserTarget() {
+        AdaptiveSelector selector = fullBank();
+        // 新用户目标分为1350±100，最近的题目只可能在难度2（1300）或难度3（1500）
+        for (int round = 0; round < 50; round++) {
+            long[] picked = selector.select(1L, 10, Collections.emptySet());
+            assertEquals(10, picked.length);
+            assertEquals(10, toSet(picked).size());
+            for (long questionId : picked) {
+                assertTrue(level(questionId) == 2 || level(questionId) == 3, "选中题目 " + questionId);
+            }
+        }
+    }
+
+    @Test
+    void skipsExcludedAndRemovedQuestions() {
+        AdaptiveSelector selector = fullBank();
+        Set<Long> exclude = new HashSet<>();
+        for (int i = 0; i < PER_LEVEL; i++) {
+            exclude.add(200L + i);
+        }
+        for (int i = 0; i < PER_LEVEL; i++) {
+            selector.remove(300L + i);
+        }
+
+        for (int round = 0; round < 50; round++) {
+            for (long questionId : selector.select(1L, 10, exclude)) {
+                assertTrue(level(questionId) == 1 || level(questionId) == 4, "选中题目 " + questionId);
+            }
+        }
+
+        // 只保留难度5的题目，全部抽完也不会多出其他题
+        selector.retain(questionId -> level(questionId) == 5);
+        long[] all = selector.select(1L, 1000, Collections.emptySet());
+        assertEquals(PER_LEVEL, all.length);
+        for (long questionId : all) {
+            assertEquals(5, level(questionId));
+        }
+    }
+
+    @Test
+    void ratingsMoveWithResults() {
+        AdaptiveSelector selector = new AdaptiveSelector();
+        selector.add(1L, 3);
+        assertEquals(AdaptiveSelector.INITIAL_USER_RATING, selector.userRating(7L));
+
+        // 能力相同答对：预期正确率50%，加K/2
+        selector.record(7L, 1L, true);
+        assertEquals(AdaptiveSelector.INITIAL_USER_RATING + 16, selector.userRating(7L), 1e-9);
+        selector.record(8L, 1L, false);
+        assertTrue(selector.userRating(8L) < AdaptiveSelector.INITIAL_USER_RATING);
+
+        // 未加入的题目不影响评分
+        selector.record(9L, 42L, true);
+        assertEquals(AdaptiveSelector.INITIAL_USER_RATING, selector.userRating(9L));
+    }
+
+    @Test
+    void questionAnsweredCorrectlyByManyMovesDownTheIndex() {
+        AdaptiveSelector selector = new AdaptiveSelector();
+        selector.add(1L, 5);
+        selector.add(2L, 5);
+        for (long userId = 1; userId <= 300; userId++) {
+            selector.record(userId, 1L, true);
+        }
+        // 题目1的分数降低后更接近新用户的目标分
+        assertArrayEquals(new long[]{1L}, selector.select(1000L, 1, Collections.emptySet()));
+
+        // 移除后重新加入沿用原评分
+        selector.remove(1L);
+        assertArrayEquals(new long[]{2L}, selector.select(1000L, 1, Collections.emptySet()));
+        selector.add(1L, 5);
+        assertArrayEquals(new long[]{1L}, selector.select(1000L, 1, Collections.emptySet()));
+    }
+
+    private static AdaptiveSelector fullBank() {
+        AdaptiveSelector selector = new AdaptiveSelector();
+        for (int difficulty = 1; difficulty <= 5; difficulty++) {
+            for (int i = 0; i < PER_LEVEL; i++) {
+                selector.add(difficulty * 100L + i, difficulty);
+            }
+        }
+        return selector;
+    }
+
+    private static int level(long questionId) {
+        return (int) (questionId / 100);
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        Set<Long> result = new HashSet<>();
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+}
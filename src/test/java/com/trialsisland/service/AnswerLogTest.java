@@ -0,0 +1,83 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.UserAnswer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AnswerLogTest {
+
+    @Test
+    void readsBackwardAcrossChunkBoundaries() {
+        AnswerLog log = new AnswerLog();
+        for (long id = 0; id < 600; id++) {
+            assertEquals(id, log.append(answer(id)));
+        }
+
+        // 第255-258条跨越第一、二个分块
+        List<UserAnswer> page = log.readBackward(259, 4);
+        assertEquals(List.of(258L, 257L, 256L, 255L), ids(page));
+        // 游标超过条数时从最新一条开始，不足limit时读到第一条为止
+        assertEquals(599L, log.readBackward(10_000, 1).get(0).getId());
+        assertEquals(List.of(1L, 0L), ids(log.readBackward(2, 10)));
+    }
+
+    @Test
+    void appendAllIsVisibleAsOneBatch() throws Exception {
+        int batch = 100;
+        int batches = 200;
+        AnswerLog log = new AnswerLog();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get() && failure.get() == null) {
+                int size = log.size();
+                if (size % batch != 0) {
+                    failure.set("读到半批记录，条数: " + size);
+                }
+                // 已发布的记录都已完整写入
+                for (UserAnswer answer : log.readBackward(size, batch)) {
+                    if (answer == null) {
+                        failure.set("读到未写入的记录，条数: " + size);
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        long id = 0;
+        for (int b = 0; b < batches; b++) {
+            List<UserAnswer> answers = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                answers.add(answer(id++));
+            }
+            log.appendAll(answers);
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(batch * batches, log.size());
+        assertEquals(List.of(19_999L, 19_998L), ids(log.readBackward(log.size(), 2)));
+    }
+
+    private static UserAnswer answer(long id) {
+        UserAnswer answer = new UserAnswer();
+        answer.setId(id);
+        return answer;
+    }
+
+    private static List<Long> ids(List<UserAnswer> answers) {
+        List<Long> ids = new ArrayList<>(answers.size());
+        for (UserAnswer answer : answers) {
+            ids.add(answer.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,125 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerMatcherTest {
+
+    @Test
+    void singleChoiceAcceptsLetterOrOptionText() {
+        AnswerMatcher matcher = compile("choice", "B", "A.造纸术", "B.针灸术", "C.火药", "D.活字印刷术");
+        assertTrue(matcher.matches("B"));
+        assertTrue(matcher.matches(" b "));
+        assertTrue(matcher.matches("Ｂ"));
+        assertTrue(matcher.matches("B."));
+        assertTrue(matcher.matches("B、"));
+        assertTrue(matcher.matches("B.针灸术"));
+        assertTrue(matcher.matches("B. 针灸术"));
+        assertTrue(matcher.matches("针灸术"));
+        assertFalse(matcher.matches("A"));
+        assertFalse(matcher.matches("A.针灸术"));
+        assertFalse(matcher.matches("B.造纸术"));
+        assertFalse(matcher.matches("火药"));
+        assertFalse(matcher.matches(""));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    void singleChoiceRejectsHedgedLetters() {
+        AnswerMatcher matcher = compile("choice", "A", "A.造纸术", "B.针灸术", "C.火药", "D.活字印刷术");
+        assertTrue(matcher.matches("A"));
+        assertFalse(matcher.matches("A B C D"));
+        assertFalse(matcher.matches("A、B"));
+        assertFalse(matcher.matches("A,B"));
+        assertFalse(matcher.matches("AB"));
+        assertFalse(matcher.matches("A. B"));
+    }
+
+    @Test
+    void multipleChoiceIgnoresOrderAndSeparators() {
+        AnswerMatcher matcher = compile("multiple", "A,B,D");
+        assertTrue(matcher.matches("ABD"));
+        assertTrue(matcher.matches("d b a"));
+        assertTrue(matcher.matches("A、B，D"));
+        assertFalse(matcher.matches("AB"));
+        assertFalse(matcher.matches("ABCD"));
+        assertFalse(matcher.matches("AABD"));
+        assertFalse(matcher.matches("A;B;D"));
+
+        // 单选题标准答案有多个字母时按多选题判
+        assertTrue(compile("choice", "AC").matches("CA"));
+    }
+
+    @Test
+    void judgeAcceptsEquivalentTokens() {
+        AnswerMatcher yes = compile("judge", "对");
+        for (String answer : new String[]{"对", "正确", "T", "true", "YES", "√", "1", " 是 "}) {
+            assertTrue(yes.matches(answer), answer);
+        }
+        assertFalse(yes.matches("错"));
+        assertFalse(yes.matches("0"));
+        assertFalse(yes.matches("对错"));
+
+        AnswerMatcher no = compile("judge", "false");
+        assertTrue(no.matches("×"));
+        assertTrue(no.matches("否"));
+        assertFalse(no.matches("对"));
+    }
+
+    @Test
+    void numberComparesWithinTolerance() {
+        AnswerMatcher exact = compile("number", "42");
+        assertTrue(exact.matches("42"));
+        assertTrue(exact.matches("42.0"));
+        assertTrue(exact.matches(" +42 "));
+        assertFalse(exact.matches("42.1"));
+        assertFalse(exact.matches("四十二"));
+        assertFalse(exact.matches("42abc"));
+
+        AnswerMatcher pi = compile("number", "3.14±0.01");
+        assertTrue(pi.matches("3.141"));
+        assertTrue(pi.matches("3.15"));
+        assertFalse(pi.matches("3.16"));
+
+        AnswerMatcher large = compile("number", "1,000+-5");
+        assertTrue(large.matches("1004"));
+        assertTrue(large.matches("995"));
+        assertFalse(large.matches("-1000"));
+    }
+
+    @Test
+    void blankAcceptsAlternativesIgnoringSpaceAndCase() {
+        AnswerMatcher matcher = compile("blank", "Hello World|你好 世界");
+        assertTrue(matcher.matches("helloworld"));
+        assertTrue(matcher.matches("  HELLO   world "));
+        assertTrue(matcher.matches("你好世界"));
+        assertFalse(matcher.matches("hello"));
+        assertFalse(matcher.matches(""));
+    }
+
+    @Test
+    void malformedAnswerFallsBackToExactMatch() {
+        AnswerMatcher numeric = compile("number", "约等于3");
+        assertTrue(numeric.matches("约等于3"));
+        assertFalse(numeric.matches("3"));
+
+        AnswerMatcher other = compile("essay", "Paris");
+        assertTrue(other.matches(" paris "));
+        assertFalse(other.matches("Paris, France"));
+        assertFalse(compile("essay", "").matches(""));
+    }
+
+    private static AnswerMatcher compile(String type, String answer, String... options) {
+        Question question = new Question();
+        question.setId(1L);
+        question.setType(type);
+        question.setAnswer(answer);
+        question.setOptions(options.length > 0 ? Arrays.asList(options) : null);
+        return AnswerMatcher.compile(question);
+    }
+}
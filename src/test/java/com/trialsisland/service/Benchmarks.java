@@ -0,0 +1,151 @@
+package com.trialsisland.service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.config.ContestPrizeProperties;
+import com.trialsisland.config.ContestWalProperties;
+import com.trialsisland.config.QuestionBankProperties;
+import com.trialsisland.config.QuestionStatsProperties;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * 基准测试的公共工具（标记为 @Tag("benchmark") 的测试默认不运行，mvn test -Pbenchmark 运行）
+ * 没有引入JMH：每项先预热再计时多轮取最好成绩，结果输出到控制台，数字只用于同一台机器上的前后对比
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * 业务日志调到WARN，避免每次操作的INFO日志占据计时
+     */
+    static void quietLogs() {
+        ((Logger) LoggerFactory.getLogger("com.trialsisland")).setLevel(Level.WARN);
+    }
+
+    /**
+     * 单线程执行ops次操作，预热warmupRounds轮后计时rounds轮，返回最好一轮的每次操作耗时（纳秒）
+     */
+    static double nanosPerOp(int warmupRounds, int rounds, int ops, IntConsumer op) {
+        for (int round = 0; round < warmupRounds; round++) {
+            for (int i = 0; i < ops; i++) {
+                op.accept(i);
+            }
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                op.accept(i);
+            }
+            best = Math.min(best, System.nanoTime() - begin);
+        }
+        return (double) best / ops;
+    }
+
+    /**
+     * threads个线程各执行opsPerThread次操作（参数为线程号），返回每秒完成的操作数
+     */
+    static double opsPerSecond(int threads, int opsPerThread, ThreadOp op) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            long begin = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < opsPerThread; i++) {
+                        op.run(thread, i);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            return (double) threads * opsPerThread * 1_000_000_000L / elapsed;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 单线程执行ops次操作，返回平均每次操作分配的字节数
+     */
+    static long allocatedPerOp(int ops, IntConsumer op) {
+        long begin = allocatedBytes();
+        for (int i = 0; i < ops; i++) {
+            op.accept(i);
+        }
+        return (allocatedBytes() - begin) / ops;
+    }
+
+    /**
+     * 当前线程累计分配的字节数
+     */
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * 触发GC后的已用堆内存
+     */
+    static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    static void report(String format, Object... args) {
+        System.out.printf("[benchmark] " + format + "%n", args);
+    }
+
+    /**
+     * 不经Spring容器组装的比赛服务，用户1..users已开通VIP并各有coins金币
+     * @param walDir 事件日志目录，null表示不启用
+     */
+    static ContestService contestService(Path bankDir, Path walDir, int users, int coins) {
+        QuestionBankProperties bankProperties = new QuestionBankProperties();
+        bankProperties.setDir(bankDir.toString());
+        bankProperties.setWatch(false);
+        QuestionService questionService = new QuestionService(new ObjectMapper(), bankProperties,
+                new QuestionStatsProperties());
+        questionService.reloadBank();
+
+        ContestWalProperties walProperties = new ContestWalProperties();
+        walProperties.setEnabled(walDir != null);
+        if (walDir != null) {
+            walProperties.setDir(walDir.toString());
+        }
+
+        VipService vipService = new VipService();
+        CoinService coinService = new CoinService();
+        for (long userId = 1; userId <= users; userId++) {
+            vipService.purchaseVip(userId, 1);
+            coinService.recharge(userId, coins, "测试充值");
+        }
+        ContestService service = new ContestService(vipService, coinService, questionService,
+                new ContestPrizeProperties(), walProperties);
+        service.initDefaultContests();
+        return service;
+    }
+
+    @FunctionalInterface
+    interface ThreadOp {
+        void run(int thread, int index);
+    }
+}
@@ -0,0 +1,59 @@
+package com.trialsisland.service;
+
+import com.trialsisland.exception.BusinessException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 报名高峰：60k位VIP用户由64个线程并发报名50k名额的比赛，每人报名两次
+ * 检查名额恰好用完、没有重复报名，并统计报名吞吐
+ */
+@Tag("benchmark")
+class ContestAdmissionBenchmark {
+
+    private static final int USERS = 60_000;
+    private static final int SEATS = 50_000;
+    private static final int THREADS = 64;
+    private static final int ATTEMPTS = 2;
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Benchmarks.quietLogs();
+    }
+
+    @Test
+    void admitsExactlyTheSeatCount() throws Exception {
+        ContestService service = Benchmarks.contestService(dir.resolve("questions"), null, USERS, 1000);
+        Long contestId = service.createContest("报名高峰", "", Arrays.asList(1L, 2L, 3L), 30, SEATS).getId();
+
+        AtomicInteger nextUser = new AtomicInteger();
+        AtomicInteger admitted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        double joinsPerSecond = Benchmarks.opsPerSecond(THREADS, USERS * ATTEMPTS / THREADS, (thread, i) -> {
+            long userId = 1 + nextUser.getAndIncrement() / ATTEMPTS;
+            try {
+                service.joinContest(contestId, userId, "user" + userId);
+                admitted.incrementAndGet();
+            } catch (BusinessException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        Benchmarks.report("admission, %d users x %d attempts on %d threads, %d seats: %.0f joins/s, admitted %d",
+                USERS, ATTEMPTS, THREADS, SEATS, joinsPerSecond, admitted.get());
+        assertEquals(SEATS, admitted.get());
+        assertEquals(USERS * ATTEMPTS - SEATS, rejected.get());
+        assertEquals(SEATS, service.getContest(contestId).getCurrentParticipants());
+    }
+}
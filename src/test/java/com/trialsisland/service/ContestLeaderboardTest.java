@@ -0,0 +1,85 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ContestLeaderboardTest {
+
+    /**
+     * 一条参赛成绩，slot即插入顺序
+     */
+    private record Entry(int slot, int score, int duration, long id) {
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingInt(Entry::score).reversed()
+            .thenComparingInt(Entry::duration)
+            .thenComparingLong(Entry::id);
+
+    @Test
+    void rankAndRangeMatchSortedList() {
+        Random random = new Random(42);
+        ContestLeaderboard leaderboard = new ContestLeaderboard();
+        List<Entry> entries = new ArrayList<>();
+        for (int slot = 0; slot < 2000; slot++) {
+            // 得分和用时取值范围小，制造大量并列
+            Entry entry = new Entry(slot, random.nextInt(10) * 10, random.nextInt(20), random.nextInt(1_000_000));
+            entries.add(entry);
+            leaderboard.add(entry.slot(), entry.score(), entry.duration(), entry.id());
+        }
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(ORDER);
+
+        assertEquals(sorted.size(), leaderboard.size());
+        for (int rank = 0; rank < sorted.size(); rank++) {
+            Entry entry = sorted.get(rank);
+            assertEquals(rank + 1, leaderboard.rankOf(entry.score(), entry.duration(), entry.id()));
+        }
+        for (int offset : new int[]{0, 1, 7, 999, 1990, 1999}) {
+            for (int limit : new int[]{1, 10, 100}) {
+                assertArrayEquals(slots(sorted, offset, limit), leaderboard.range(offset, limit),
+                        "offset=" + offset + ", limit=" + limit);
+            }
+        }
+        assertArrayEquals(slots(sorted, 0, 3), leaderboard.top(3));
+    }
+
+    @Test
+    void tiesBreakByEarlierRegistration() {
+        ContestLeaderboard leaderboard = new ContestLeaderboard();
+        leaderboard.add(0, 50, 30, 3L);
+        leaderboard.add(1, 50, 30, 1L);
+        leaderboard.add(2, 50, 20, 9L);
+        leaderboard.add(3, 60, 90, 5L);
+
+        assertArrayEquals(new int[]{3, 2, 1, 0}, leaderboard.top(10));
+        assertEquals(3, leaderboard.rankOf(50, 30, 1L));
+        assertEquals(0, leaderboard.rankOf(50, 30, 2L));
+    }
+
+    @Test
+    void rangeOutsideBoardIsEmpty() {
+        ContestLeaderboard leaderboard = new ContestLeaderboard();
+        assertEquals(0, leaderboard.top(3).length);
+
+        leaderboard.add(0, 10, 10, 1L);
+        long version = leaderboard.version();
+        leaderboard.add(1, 20, 10, 2L);
+        assertEquals(version + 1, leaderboard.version());
+        assertEquals(0, leaderboard.range(2, 10).length);
+        assertEquals(0, leaderboard.range(-1, 10).length);
+        assertEquals(0, leaderboard.range(0, 0).length);
+        assertArrayEquals(new int[]{0}, leaderboard.range(1, 10));
+    }
+
+    private static int[] slots(List<Entry> sorted, int offset, int limit) {
+        return sorted.subList(Math.min(offset, sorted.size()), Math.min(offset + limit, sorted.size()))
+                .stream().mapToInt(Entry::slot).toArray();
+    }
+}
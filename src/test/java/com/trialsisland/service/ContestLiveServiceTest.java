@@ -0,0 +1,92 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.dto.RankingItem;
+import com.trialsisland.dto.RankingPageResponse;
+import com.trialsisland.entity.Contest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContestLiveServiceTest {
+
+    private ContestService contestService;
+    private ContestLiveService liveService;
+    private long users;
+
+    @BeforeEach
+    void setUp() {
+        contestService = mock(ContestService.class);
+        liveService = new ContestLiveService(contestService, new ObjectMapper(), Runnable::run);
+        for (long contestId = 1; contestId <= 2; contestId++) {
+            Contest contest = new Contest();
+            contest.setId(contestId);
+            contest.setStatus(1);
+            when(contestService.getContest(contestId)).thenReturn(contest);
+            // 每次读取排行榜都有新选手上榜，保证每轮都有差异要推送
+            when(contestService.getRankingPage(eq(contestId), any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+                long userId = ++users;
+                return new RankingPageResponse(1, null, null,
+                        new ArrayList<>(List.of(new RankingItem(1, userId, "user" + userId, 10, 30))));
+            });
+        }
+        when(contestService.getLeaderboardVersion(any())).thenReturn(1L);
+    }
+
+    @Test
+    void removesChannelWhenLastSubscriberLeaves() {
+        SseEmitter first = liveService.subscribe(1L);
+        SseEmitter second = liveService.subscribe(1L);
+        liveService.subscribe(2L);
+        assertEquals(2, liveService.channelCount());
+
+        // 已关闭的连接在推送时发送失败，随之从通道移除
+        first.complete();
+        when(contestService.getLeaderboardVersion(any())).thenReturn(2L);
+        liveService.broadcast();
+        assertEquals(2, liveService.channelCount());
+
+        second.complete();
+        when(contestService.getLeaderboardVersion(any())).thenReturn(3L);
+        liveService.broadcast();
+        assertEquals(1, liveService.channelCount());
+    }
+
+    @Test
+    void closesChannelWhenContestEnds() {
+        liveService.subscribe(1L);
+        liveService.subscribe(2L);
+        when(contestService.isContestEnded(1L)).thenReturn(true);
+        liveService.broadcast();
+        assertEquals(1, liveService.channelCount());
+
+        // 已结束的比赛只推送快照，不再登记通道
+        liveService.subscribe(1L);
+        assertEquals(1, liveService.channelCount());
+    }
+
+    @Test
+    void laterSubscriberStartsFromLastBroadcastState() {
+        liveService.subscribe(1L);
+        when(contestService.getLeaderboardVersion(any())).thenReturn(2L);
+        liveService.broadcast();
+        verify(contestService, times(2)).getRankingPage(eq(1L), any(), anyInt(), anyInt());
+
+        // 后加入的订阅者不单独读取排行榜，快照取自通道上一帧，之后的增量帧正好接上
+        liveService.subscribe(1L);
+        verify(contestService, times(2)).getRankingPage(eq(1L), any(), anyInt(), anyInt());
+        assertEquals(1, liveService.channelCount());
+    }
+}
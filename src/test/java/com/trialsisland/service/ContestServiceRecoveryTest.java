@@ -0,0 +1,190 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.config.ContestPrizeProperties;
+import com.trialsisland.config.ContestWalProperties;
+import com.trialsisland.config.QuestionBankProperties;
+import com.trialsisland.config.QuestionStatsProperties;
+import com.trialsisland.entity.Contest;
+import com.trialsisland.entity.ContestParticipation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 比赛事件日志：生成快照后重启，重放出的比赛数据与重启前一致
+ */
+class ContestServiceRecoveryTest {
+
+    private static final Long CONTEST_ID = 1L;
+    private static final String[] ANSWERS = {"B", "C", "B", "A", "D"};
+
+    @TempDir
+    Path dir;
+
+    private final List<ContestService> started = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        for (ContestService service : started) {
+            service.shutdownLifecycle();
+        }
+    }
+
+    @Test
+    void replaysSnapshotAndLaterSegments() {
+        ContestService live = start();
+        for (long userId = 1; userId <= 20; userId++) {
+            join(live, userId);
+            answer(live, userId, (int) userId);
+            if (userId % 2 == 0) {
+                live.finishContest(CONTEST_ID, userId);
+            }
+        }
+        live.compactNow();
+
+        // 快照之后的事件只在新段中
+        for (long userId = 21; userId <= 30; userId++) {
+            join(live, userId);
+            answer(live, userId, (int) userId);
+        }
+        live.finishContest(CONTEST_ID, 1L);
+        live.compactNow();
+        live.finishContest(CONTEST_ID, 3L);
+        live.settleContest(CONTEST_ID);
+
+        assertRecovered(live, 30);
+    }
+
+    @Test
+    void compactionRacingWithWritesLosesNothing() throws Exception {
+        ContestService live = start();
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread compactor = new Thread(() -> {
+            while (running.get()) {
+                live.compactNow();
+            }
+        });
+        compactor.start();
+
+        int users = 800;
+        List<Future<?>> results = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            long id = userId;
+            results.add(workers.submit(() -> {
+                join(live, id);
+                answer(live, id, (int) id);
+                if (id % 3 == 0) {
+                    live.finishContest(CONTEST_ID, id);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(60, TimeUnit.SECONDS);
+        }
+        running.set(false);
+        compactor.join();
+        workers.shutdown();
+
+        live.settleContest(CONTEST_ID);
+        live.compactNow();
+        assertRecovered(live, users);
+    }
+
+    @Test
+    void listsParticipationsNewestFirstAfterReplay() {
+        ContestService live = start();
+        Long second = live.createContest("第二场", "", Arrays.asList(1L, 2L), 30).getId();
+        Long third = live.createContest("第三场", "", Arrays.asList(3L), 30).getId();
+        live.joinContest(third, 7L, "user7");
+        join(live, 7L);
+        live.joinContest(second, 7L, "user7");
+        live.compactNow();
+
+        List<Long> expected = Arrays.asList(second, CONTEST_ID, third);
+        assertEquals(expected, contestIds(live.getUserAllParticipations(7L)));
+        assertEquals(expected, contestIds(start().getUserAllParticipations(7L)));
+    }
+
+    private static List<Long> contestIds(List<ContestParticipation> participations) {
+        List<Long> ids = new ArrayList<>();
+        for (ContestParticipation participation : participations) {
+            ids.add(participation.getContestId());
+        }
+        return ids;
+    }
+
+    private void assertRecovered(ContestService live, int users) {
+        ContestService recovered = start();
+        Contest before = live.getContest(CONTEST_ID);
+        Contest after = recovered.getContest(CONTEST_ID);
+        assertEquals(before.getStatus(), after.getStatus());
+        assertEquals(before.getCurrentParticipants(), after.getCurrentParticipants());
+        assertEquals(before.getPrizePool(), after.getPrizePool());
+        assertEquals(users, after.getCurrentParticipants());
+
+        for (long userId = 1; userId <= users; userId++) {
+            ContestParticipation expected = live.getUserParticipation(CONTEST_ID, userId);
+            ContestParticipation actual = recovered.getUserParticipation(CONTEST_ID, userId);
+            assertNotNull(actual, "用户 " + userId + " 的参赛记录丢失");
+            assertEquals(expected, actual);
+        }
+        assertEquals(live.getRankingPage(CONTEST_ID, null, 0, 100),
+                recovered.getRankingPage(CONTEST_ID, null, 0, 100));
+    }
+
+    private ContestService start() {
+        QuestionBankProperties bankProperties = new QuestionBankProperties();
+        bankProperties.setDir(dir.resolve("questions").toString());
+        bankProperties.setWatch(false);
+        QuestionService questionService = new QuestionService(new ObjectMapper(), bankProperties,
+                new QuestionStatsProperties());
+        questionService.reloadBank();
+
+        ContestWalProperties walProperties = new ContestWalProperties();
+        walProperties.setEnabled(true);
+        walProperties.setDir(dir.resolve("wal").toString());
+        walProperties.setSegmentSizeMb(1);
+
+        VipService vipService = new VipService();
+        CoinService coinService = new CoinService();
+        for (long userId = 1; userId <= 1000; userId++) {
+            vipService.purchaseVip(userId, 1);
+            coinService.recharge(userId, 1000, "测试充值");
+        }
+        ContestService service = new ContestService(vipService, coinService, questionService,
+                new ContestPrizeProperties(), walProperties);
+        service.initDefaultContests();
+        started.add(service);
+        return service;
+    }
+
+    private static void join(ContestService service, long userId) {
+        service.joinContest(CONTEST_ID, userId, "user" + userId);
+    }
+
+    /**
+     * 按userId决定答对几道题，让得分各不相同
+     */
+    private static void answer(ContestService service, long userId, int seed) {
+        for (int i = 0; i < ANSWERS.length; i++) {
+            String answer = (seed >> i & 1) == 1 ? ANSWERS[i] : "Z";
+            assertTrue(service.submitAnswer(CONTEST_ID, userId, i + 1L, answer, 3L + i) == answer.equals(ANSWERS[i]));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.config.ContestPrizeProperties;
+import com.trialsisland.config.ContestWalProperties;
+import com.trialsisland.config.QuestionBankProperties;
+import com.trialsisland.config.QuestionStatsProperties;
+import com.trialsisland.entity.Question;
+import com.trialsisland.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ContestServiceTest {
+
+    private static final Long CONTEST_ID = 1L;
+
+    @TempDir
+    Path dir;
+
+    private QuestionService questionService;
+    private CoinService coinService;
+    private ContestService contestService;
+
+    @BeforeEach
+    void setUp() {
+        QuestionBankProperties bankProperties = new QuestionBankProperties();
+        bankProperties.setDir(dir.resolve("questions").toString());
+        bankProperties.setWatch(false);
+        questionService = new QuestionService(new ObjectMapper(), bankProperties, new QuestionStatsProperties());
+        questionService.reloadBank();
+
+        VipService vipService = new VipService();
+        coinService = new CoinService();
+        for (long userId = 1; userId <= 10; userId++) {
+            vipService.purchaseVip(userId, 1);
+            coinService.recharge(userId, 1000, "测试充值");
+        }
+        contestService = new ContestService(vipService, coinService, questionService,
+                new ContestPrizeProperties(), new ContestWalProperties());
+        contestService.initDefaultContests();
+    }
+
+    @AfterEach
+    void tearDown() {
+        contestService.shutdownLifecycle();
+    }
+
+    @Test
+    void startFailsBeforeTimingWhenQuestionWasRemoved() {
+        contestService.joinContest(CONTEST_ID, 1L, "user1");
+        Question removed = questionService.getQuestionEntity(3L);
+        questionService.removeQuestion(3L);
+
+        assertThrows(BusinessException.class, () -> contestService.startContest(CONTEST_ID, 1L));
+        // 未开始计时，题目恢复后可以正常开始
+        assertEquals(0, contestService.getUserParticipation(CONTEST_ID, 1L).getStatus());
+        assertNull(contestService.getUserParticipation(CONTEST_ID, 1L).getStartTime());
+
+        questionService.saveQuestion(removed);
+        assertNotNull(contestService.startContest(CONTEST_ID, 1L));
+        assertEquals(1, contestService.getUserParticipation(CONTEST_ID, 1L).getStatus());
+    }
+
+    @Test
+    void joinRefundsFeeWhenRecordingFailsAfterPayment() {
+        ContestWalProperties walProperties = new ContestWalProperties();
+        walProperties.setEnabled(true);
+        walProperties.setDir(dir.resolve("wal").toString());
+        walProperties.setSegmentSizeMb(1);
+        VipService vipService = new VipService();
+        vipService.purchaseVip(1L, 1);
+        ContestService walService = new ContestService(vipService, coinService, questionService,
+                new ContestPrizeProperties(), walProperties);
+        walService.initDefaultContests();
+        try {
+            // 报名事件超过段大小，扣费之后写日志失败
+            String oversized = "u".repeat(2 * 1024 * 1024);
+            assertThrows(BusinessException.class, () -> walService.joinContest(CONTEST_ID, 1L, oversized));
+            assertEquals(1000, coinService.getBalance(1L));
+            assertNull(walService.getUserParticipation(CONTEST_ID, 1L));
+            assertEquals(0, walService.getContest(CONTEST_ID).getCurrentParticipants());
+
+            // 退款后可以重新报名
+            walService.joinContest(CONTEST_ID, 1L, "user1");
+            assertNotNull(walService.getUserParticipation(CONTEST_ID, 1L));
+            assertEquals(1, walService.getContest(CONTEST_ID).getCurrentParticipants());
+        } finally {
+            walService.shutdownLifecycle();
+        }
+    }
+}
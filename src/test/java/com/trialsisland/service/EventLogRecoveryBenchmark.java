@@ -0,0 +1,74 @@
+package com.trialsisland.service;
+
+import com.trialsisland.config.ContestWalProperties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 重启恢复耗时：重放全部事件 vs 从快照恢复
+ * 每位选手产生报名、开始（首次答题时记录）、5次答题、交卷共8条事件；人数可用 -Dbenchmark.users 调大
+ * 报告的事件数和快照记录数直接从日志目录读取，不按公式推算
+ */
+@Tag("benchmark")
+class EventLogRecoveryBenchmark {
+
+    private static final int USERS = Integer.getInteger("benchmark.users", 50_000);
+    private static final String[] ANSWERS = {"B", "C", "B", "A", "D"};
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Benchmarks.quietLogs();
+    }
+
+    @Test
+    void fullReplayVersusSnapshot() {
+        Path wal = dir.resolve("wal");
+        ContestService live = Benchmarks.contestService(dir.resolve("questions"), wal, USERS, 1000);
+        Long contestId = live.createContest("恢复测试", "", Arrays.asList(1L, 2L, 3L, 4L, 5L), 30, USERS).getId();
+        for (long userId = 1; userId <= USERS; userId++) {
+            live.joinContest(contestId, userId, "user" + userId);
+            for (int q = 0; q < ANSWERS.length; q++) {
+                live.submitAnswer(contestId, userId, q + 1L, userId % (q + 2) == 0 ? "Z" : ANSWERS[q], 3L + q);
+            }
+            live.finishContest(contestId, userId);
+        }
+        live.shutdownLifecycle();
+        long events = countRecords(wal);
+
+        long begin = System.nanoTime();
+        ContestService replayed = Benchmarks.contestService(dir.resolve("questions"), wal, 0, 0);
+        long replayMillis = (System.nanoTime() - begin) / 1_000_000;
+        assertEquals(USERS, replayed.getContest(contestId).getCurrentParticipants());
+
+        replayed.compactNow();
+        replayed.shutdownLifecycle();
+        long snapshotRecords = countRecords(wal);
+        begin = System.nanoTime();
+        ContestService restored = Benchmarks.contestService(dir.resolve("questions"), wal, 0, 0);
+        long snapshotMillis = (System.nanoTime() - begin) / 1_000_000;
+        assertEquals(USERS, restored.getContest(contestId).getCurrentParticipants());
+        assertEquals(live.getRankingPage(contestId, null, 0, 100), restored.getRankingPage(contestId, null, 0, 100));
+        restored.shutdownLifecycle();
+
+        Benchmarks.report("recovery, %d users: full replay of %d events %d ms, from snapshot (%d records) %d ms",
+                USERS, events, replayMillis, snapshotRecords, snapshotMillis);
+    }
+
+    /**
+     * 日志目录中重启时需要读取的记录数（最新快照加其后的段）
+     */
+    private static long countRecords(Path wal) {
+        MappedEventLog log = new MappedEventLog(wal, new ContestWalProperties().getSegmentSizeMb() * 1024 * 1024);
+        return log.replay(record -> { });
+    }
+}
@@ -0,0 +1,189 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.CoinAccount;
+import com.trialsisland.entity.CoinTransaction;
+import com.trialsisland.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 不同线程数下的加锁吞吐：线程数取1、2、4……直到CPU核数（-Dbenchmark.maxThreads 可调大）
+ * 充值对比按账户加锁的CoinService与原来整个服务同步的充值实现（BaselineCoinService，照搬改动前的代码）；
+ * 比赛服务改动前的实现已无法单独保留，只报告按比赛加锁随线程数的伸缩情况，不与全局锁比较
+ */
+@Tag("benchmark")
+class LockContentionBenchmark {
+
+    private static final int MAX_THREADS = Integer.getInteger("benchmark.maxThreads",
+            Runtime.getRuntime().availableProcessors());
+    private static final int RECHARGES_PER_THREAD = 50_000;
+    private static final int USERS_PER_CONTEST = 2_000;
+    private static final String[] ANSWERS = {"B", "C", "B", "A", "D"};
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Benchmarks.quietLogs();
+    }
+
+    @Test
+    void rechargeDistinctAccounts() throws Exception {
+        for (int threads : threadCounts()) {
+            CoinService coinService = new CoinService();
+            BaselineCoinService baseline = new BaselineCoinService();
+            // 预热
+            Benchmarks.opsPerSecond(threads, RECHARGES_PER_THREAD / 10,
+                    (thread, i) -> coinService.recharge(thread + 1L, 1, "预热"));
+            Benchmarks.opsPerSecond(threads, RECHARGES_PER_THREAD / 10,
+                    (thread, i) -> baseline.recharge(thread + 1L, 1, "预热"));
+
+            double perAccount = Benchmarks.opsPerSecond(threads, RECHARGES_PER_THREAD,
+                    (thread, i) -> coinService.recharge(thread + 1L, 1, "充值"));
+            double global = Benchmarks.opsPerSecond(threads, RECHARGES_PER_THREAD,
+                    (thread, i) -> baseline.recharge(thread + 1L, 1, "充值"));
+            Benchmarks.report("recharge, %d threads on distinct accounts: per-account lock %.0f ops/s, "
+                    + "synchronized service (baseline) %.0f ops/s", threads, perAccount, global);
+            assertEquals(RECHARGES_PER_THREAD / 10 + RECHARGES_PER_THREAD, coinService.getBalance(1L));
+            assertEquals(RECHARGES_PER_THREAD / 10 + RECHARGES_PER_THREAD, baseline.getBalance(1L));
+        }
+    }
+
+    @Test
+    void joinAndAnswerAcrossContests() throws Exception {
+        for (int threads : threadCounts()) {
+            ContestService service = Benchmarks.contestService(dir.resolve("questions"), null,
+                    2 * threads * USERS_PER_CONTEST, 1000);
+            try {
+                long[] warmup = contests(service, threads);
+                long[] measured = contests(service, threads);
+                Benchmarks.opsPerSecond(threads, USERS_PER_CONTEST,
+                        (thread, i) -> joinAndAnswer(service, warmup[thread], userId(threads, thread, i, 1)));
+                double rate = Benchmarks.opsPerSecond(threads, USERS_PER_CONTEST,
+                        (thread, i) -> joinAndAnswer(service, measured[thread], userId(threads, thread, i, 0)));
+                Benchmarks.report("join + %d answers, %d threads on distinct contests: per-contest lock %.0f users/s",
+                        ANSWERS.length, threads, rate);
+                assertEquals(USERS_PER_CONTEST, service.getContest(measured[0]).getCurrentParticipants());
+            } finally {
+                service.shutdownLifecycle();
+            }
+        }
+    }
+
+    /**
+     * 1、2、4……，最后一项为MAX_THREADS
+     */
+    private static List<Integer> threadCounts() {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < MAX_THREADS; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(MAX_THREADS);
+        return counts;
+    }
+
+    private static long[] contests(ContestService service, int threads) {
+        long[] ids = new long[threads];
+        for (int t = 0; t < threads; t++) {
+            ids[t] = service.createContest("基准测试" + t, "", Arrays.asList(1L, 2L, 3L, 4L, 5L), 30,
+                    USERS_PER_CONTEST).getId();
+        }
+        return ids;
+    }
+
+    private static long userId(int threads, int thread, int index, int group) {
+        return 1L + ((long) group * threads + thread) * USERS_PER_CONTEST + index;
+    }
+
+    private static void joinAndAnswer(ContestService service, long contestId, long userId) {
+        service.joinContest(contestId, userId, "user" + userId);
+        for (int q = 0; q < ANSWERS.length; q++) {
+            service.submitAnswer(contestId, userId, q + 1L, ANSWERS[q], 3L);
+        }
+    }
+
+    /**
+     * 改动前的充值路径：方法整体同步在服务对象上，所有账户共用一把锁
+     */
+    @Slf4j
+    static class BaselineCoinService {
+
+        private final Map<Long, CoinAccount> coinAccounts = new ConcurrentHashMap<>();
+        private final Map<Long, List<CoinTransaction>> transactions = new ConcurrentHashMap<>();
+        private final AtomicLong accountIdGenerator = new AtomicLong(1);
+        private final AtomicLong transactionIdGenerator = new AtomicLong(1);
+
+        synchronized CoinAccount recharge(Long userId, Integer amount, String description) {
+            if (amount <= 0) {
+                throw new BusinessException("充值金额必须大于0");
+            }
+
+            CoinAccount account = getOrCreateAccount(userId);
+            Integer beforeBalance = account.getBalance();
+            Integer afterBalance = beforeBalance + amount;
+
+            account.setBalance(afterBalance);
+            account.setTotalRecharge(account.getTotalRecharge() + amount);
+            account.setUpdateTime(LocalDateTime.now());
+
+            addTransaction(userId, 1, amount, beforeBalance, afterBalance, null, description);
+            log.info("用户 {} 充值 {} 金币，余额: {} -> {}", userId, amount, beforeBalance, afterBalance);
+            return account;
+        }
+
+        Integer getBalance(Long userId) {
+            CoinAccount account = coinAccounts.get(userId);
+            return account != null ? account.getBalance() : 0;
+        }
+
+        private CoinAccount getOrCreateAccount(Long userId) {
+            CoinAccount account = coinAccounts.get(userId);
+            if (account == null) {
+                account = new CoinAccount();
+                account.setId(accountIdGenerator.getAndIncrement());
+                account.setUserId(userId);
+                account.setBalance(0);
+                account.setTotalRecharge(0);
+                account.setTotalSpend(0);
+                account.setTotalReward(0);
+                account.setCreateTime(LocalDateTime.now());
+                account.setUpdateTime(LocalDateTime.now());
+                coinAccounts.put(userId, account);
+                transactions.put(userId, new ArrayList<>());
+            }
+            return account;
+        }
+
+        private void addTransaction(Long userId, Integer type, Integer amount,
+                                    Integer beforeBalance, Integer afterBalance,
+                                    Long relatedId, String description) {
+            CoinTransaction transaction = new CoinTransaction();
+            transaction.setId(transactionIdGenerator.getAndIncrement());
+            transaction.setUserId(userId);
+            transaction.setType(type);
+            transaction.setAmount(amount);
+            transaction.setBeforeBalance(beforeBalance);
+            transaction.setAfterBalance(afterBalance);
+            transaction.setRelatedId(relatedId);
+            transaction.setDescription(description);
+            transaction.setCreateTime(LocalDateTime.now());
+
+            transactions.computeIfAbsent(userId, k -> new ArrayList<>()).add(transaction);
+        }
+    }
+}
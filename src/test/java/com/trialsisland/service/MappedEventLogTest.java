@@ -0,0 +1,138 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MappedEventLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysAcrossSegmentRotation() {
+        MappedEventLog log = open(new ArrayList<>());
+        List<String> expected = new ArrayList<>();
+        // 每条约100字节，写满多个段
+        for (int i = 0; i < 200; i++) {
+            String record = i + ":" + "x".repeat(90);
+            expected.add(record);
+            log.awaitDurable(log.append(bytes(record)));
+        }
+        log.close();
+
+        List<String> replayed = new ArrayList<>();
+        open(replayed).close();
+        assertEquals(expected, replayed);
+    }
+
+    @Test
+    void tornTailStopsReplayAtLastCompleteRecord() throws IOException {
+        MappedEventLog log = open(new ArrayList<>());
+        for (int i = 0; i < 5; i++) {
+            log.append(bytes("event-" + i));
+        }
+        log.close();
+
+        // 模拟最后一条记录只写了一半：内容被截断，校验和对不上
+        Path segment = segments().get(0);
+        int lastRecordEnd = 4 * (8 + "event-0".length()) + 8 + "event-4".length();
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[3]), lastRecordEnd - 3);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        MappedEventLog reopened = open(replayed);
+        assertEquals(Arrays.asList("event-0", "event-1", "event-2", "event-3"), replayed);
+
+        // 损坏的段不再写入，新事件进入新段，下次重放时排在其后
+        reopened.append(bytes("event-5"));
+        reopened.close();
+        replayed.clear();
+        open(replayed).close();
+        assertEquals(Arrays.asList("event-0", "event-1", "event-2", "event-3", "event-5"), replayed);
+    }
+
+    @Test
+    void replayStartsFromLatestSnapshot() throws IOException {
+        MappedEventLog log = open(new ArrayList<>());
+        log.append(bytes("before-1"));
+        log.append(bytes("before-2"));
+        log.snapshot(out -> out.accept(bytes("state-after-before-2")));
+        log.append(bytes("after-1"));
+        log.snapshot(out -> {
+            out.accept(bytes("state-after-after-1"));
+            out.accept(bytes("second-state-record"));
+        });
+        log.append(bytes("after-2"));
+        log.close();
+
+        // 旧段和旧快照已删除
+        assertEquals(1, files(".snap").size());
+        assertEquals(1, segments().size());
+
+        List<String> replayed = new ArrayList<>();
+        open(replayed).close();
+        assertEquals(Arrays.asList("state-after-after-1", "second-state-record", "after-2"), replayed);
+    }
+
+    @Test
+    void snapshotWithoutLaterEventsRecoversSnapshotOnly() {
+        MappedEventLog log = open(new ArrayList<>());
+        log.append(bytes("event"));
+        log.snapshot(out -> out.accept(bytes("state")));
+        log.close();
+
+        List<String> replayed = new ArrayList<>();
+        MappedEventLog reopened = open(replayed);
+        assertEquals(List.of("state"), replayed);
+        reopened.append(bytes("next"));
+        reopened.close();
+
+        replayed.clear();
+        open(replayed).close();
+        assertEquals(Arrays.asList("state", "next"), replayed);
+    }
+
+    private MappedEventLog open(List<String> replayed) {
+        MappedEventLog log = new MappedEventLog(dir, SEGMENT_SIZE);
+        log.replay(record -> {
+            byte[] data = new byte[record.remaining()];
+            record.get(data);
+            replayed.add(new String(data, StandardCharsets.UTF_8));
+        });
+        log.open();
+        return log;
+    }
+
+    private List<Path> segments() throws IOException {
+        return files(".log");
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(suffix)).sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
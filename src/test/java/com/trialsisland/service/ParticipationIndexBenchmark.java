@@ -0,0 +1,52 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 参赛记录查询：ParticipationIndex vs 原来以 "userId_contestId" 字符串为键的HashMap
+ */
+@Tag("benchmark")
+class ParticipationIndexBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int CONTESTS = 10;
+    private static final int LOOKUPS = 1_000_000;
+
+    @Test
+    void indexVersusStringKeyMap() {
+        ParticipationIndex index = new ParticipationIndex();
+        Map<String, Integer> stringKeys = new HashMap<>();
+        int slot = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            for (long contestId = 1; contestId <= CONTESTS; contestId += 3) {
+                index.putIfAbsent(userId, contestId, slot);
+                stringKeys.put(userId + "_" + contestId, slot);
+                slot++;
+            }
+        }
+
+        // 约四成命中、六成未命中，命中对应答题，未命中对应报名前的重复报名校验
+        long[] sink = new long[1];
+        double indexNanos = Benchmarks.nanosPerOp(3, 5, LOOKUPS,
+                i -> sink[0] += index.get(1 + i % USERS, 1 + i % CONTESTS));
+        long indexBytes = Benchmarks.allocatedPerOp(LOOKUPS,
+                i -> sink[0] += index.get(1 + i % USERS, 1 + i % CONTESTS));
+        double mapNanos = Benchmarks.nanosPerOp(3, 5, LOOKUPS, i -> {
+            Integer value = stringKeys.get((1 + i % USERS) + "_" + (1 + i % CONTESTS));
+            sink[0] += value != null ? value : -1;
+        });
+        long mapBytes = Benchmarks.allocatedPerOp(LOOKUPS, i -> {
+            Integer value = stringKeys.get((1 + i % USERS) + "_" + (1 + i % CONTESTS));
+            sink[0] += value != null ? value : -1;
+        });
+        Benchmarks.report("participation lookup, %d entries: index %.1f ns/op %d B/op, string-key map %.1f ns/op %d B/op",
+                slot, indexNanos, indexBytes, mapNanos, mapBytes);
+        assertEquals(slot, index.size());
+    }
+}
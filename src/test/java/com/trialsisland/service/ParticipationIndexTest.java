@@ -0,0 +1,91 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParticipationIndexTest {
+
+    @Test
+    void lookupsSurviveResize() {
+        ParticipationIndex index = new ParticipationIndex();
+        Random random = new Random(7);
+        Map<String, Integer> expected = new HashMap<>();
+        // 远超初始容量1024，触发多次扩容
+        for (int slot = 0; expected.size() < 20_000; slot++) {
+            long userId = random.nextInt(50_000);
+            long contestId = random.nextInt(8);
+            Integer previous = expected.putIfAbsent(userId + "_" + contestId, slot);
+            assertEquals(previous == null ? -1 : previous, index.putIfAbsent(userId, contestId, slot));
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            String[] key = entry.getKey().split("_");
+            assertEquals(entry.getValue(), index.get(Long.parseLong(key[0]), Long.parseLong(key[1])));
+        }
+        assertEquals(-1, index.get(50_000, 0));
+        assertEquals(-1, index.get(0, 8));
+    }
+
+    @Test
+    void swappedAndEdgeKeysStayDistinct() {
+        ParticipationIndex index = new ParticipationIndex();
+        // userId和contestId互换、仅差一位的键，以及哈希异或后可能相同的组合
+        long[][] keys = {{1, 2}, {2, 1}, {0, 3}, {3, 0}, {1, 3}, {3, 1}, {0, 0}, {-1, -1}, {Long.MAX_VALUE, 1}};
+        for (int slot = 0; slot < keys.length; slot++) {
+            assertEquals(-1, index.putIfAbsent(keys[slot][0], keys[slot][1], slot));
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            assertEquals(slot, index.get(keys[slot][0], keys[slot][1]));
+        }
+        assertEquals(4, index.putIfAbsent(1, 3, 99));
+        assertEquals(keys.length, index.size());
+        assertEquals(-1, index.get(2, 2));
+    }
+
+    @Test
+    void keysHashingToSameBucketProbePastEachOther() {
+        ParticipationIndex index = new ParticipationIndex();
+        // 找出初始容量下落在同一个槽位的键，构造长探测链，并跨越扩容
+        int bucket = ParticipationIndex.hash(1, 1) & 1023;
+        List<long[]> colliding = new ArrayList<>();
+        for (long userId = 1; colliding.size() < 64; userId++) {
+            if ((ParticipationIndex.hash(userId, 1) & 1023) == bucket) {
+                colliding.add(new long[]{userId, 1});
+            }
+        }
+        for (int slot = 0; slot < colliding.size(); slot++) {
+            assertEquals(-1, index.putIfAbsent(colliding.get(slot)[0], colliding.get(slot)[1], slot));
+            for (int i = 0; i <= slot; i++) {
+                assertEquals(i, index.get(colliding.get(i)[0], colliding.get(i)[1]));
+            }
+        }
+        for (int filler = 0; filler < 2000; filler++) {
+            index.putIfAbsent(filler, 2L, 100 + filler);
+        }
+        for (int slot = 0; slot < colliding.size(); slot++) {
+            assertEquals(slot, index.get(colliding.get(slot)[0], colliding.get(slot)[1]));
+        }
+        assertEquals(colliding.size() + 2000, index.size());
+    }
+
+    @Test
+    void consecutiveUserIdsInOneContestStayDistinct() {
+        ParticipationIndex index = new ParticipationIndex();
+        // 同一比赛下连续的userId，行号从0开始，0号行必须与空槽区分
+        for (int userId = 0; userId < 3000; userId++) {
+            index.putIfAbsent(userId, 1L, userId);
+        }
+        for (int userId = 0; userId < 3000; userId++) {
+            assertEquals(userId, index.get(userId, 1L));
+            assertEquals(-1, index.get(userId, 2L));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.ContestParticipation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 每位选手占用的堆内存：列式存储 vs 原来每人一个ContestParticipation加一份答题卡
+ * 两边都按完赛后的状态填满字段，用户名字符串各自单独分配
+ */
+@Tag("benchmark")
+class ParticipationStoreBenchmark {
+
+    private static final int ENTRANTS = 200_000;
+    private static final int QUESTIONS = 5;
+
+    @Test
+    void bytesPerEntrant() throws InterruptedException {
+        long before = Benchmarks.usedHeap();
+        ParticipationStore store = new ParticipationStore(QUESTIONS);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < ENTRANTS; i++) {
+            int slot = store.append(1_000_000L + i, 1_000_000L + i, "user" + i, now);
+            store.markStarted(slot, now + 1000);
+            for (int q = 0; q < QUESTIONS; q++) {
+                store.recordAnswer(slot, q, q % 2 == 0, 10, 3 + q, now + 2000 + q);
+            }
+            store.markFinished(slot, now + 9000);
+        }
+        long columnar = Benchmarks.usedHeap() - before;
+        assertEquals(ENTRANTS, store.size());
+
+        before = Benchmarks.usedHeap();
+        List<Object[]> beans = new ArrayList<>(ENTRANTS);
+        LocalDateTime time = LocalDateTime.now();
+        for (int i = 0; i < ENTRANTS; i++) {
+            beans.add(new Object[]{bean(i, time), new long[1], new long[1], new int[QUESTIONS]});
+        }
+        long perBean = Benchmarks.usedHeap() - before;
+        assertEquals(ENTRANTS, beans.size());
+
+        Benchmarks.report("memory per entrant, %d entrants x %d questions: columnar %d B (column arrays %d B), "
+                        + "bean + answer sheet %d B", ENTRANTS, QUESTIONS, columnar / ENTRANTS,
+                store.memoryBytes() / ENTRANTS, perBean / ENTRANTS);
+    }
+
+    /**
+     * 原来的参赛记录对象，时间字段各自是独立的LocalDateTime
+     */
+    private static ContestParticipation bean(int i, LocalDateTime time) {
+        ContestParticipation participation = new ContestParticipation();
+        participation.setId(1_000_000L + i);
+        participation.setContestId(1_000L);
+        participation.setUserId(1_000_000L + i);
+        participation.setUsername("user" + i);
+        participation.setTotalScore(1_000 + i);
+        participation.setCorrectCount(3);
+        participation.setTotalQuestions(QUESTIONS);
+        participation.setTotalDuration(1_000 + i);
+        participation.setRewardCoins(0);
+        participation.setStatus(2);
+        participation.setRegistrationTime(time.plusNanos(i));
+        participation.setStartTime(time.plusNanos(i + 1));
+        participation.setFinishTime(time.plusNanos(i + 2));
+        participation.setCreateTime(time.plusNanos(i + 3));
+        participation.setUpdateTime(time.plusNanos(i + 4));
+        return participation;
+    }
+}
@@ -0,0 +1,80 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QuestionBankLoaderTest {
+
+    private final QuestionBankLoader loader = new QuestionBankLoader(new ObjectMapper());
+
+    @Test
+    void csvQuotedFieldsKeepNewlinesAndDoubledQuotes() throws IOException {
+        String csv = "id,content,type,options,answer\n"
+                + "1,\"第一行\n第二行，含\"\"引号\"\"\",choice,\"A. 1|B. 2, 3\",A\n"
+                + "2,普通题目,judge,,true\n";
+        List<Question> questions = new ArrayList<>();
+
+        assertEquals(2, loader.loadCsv(reader(csv), "test.csv", questions::add));
+        assertEquals("第一行\n第二行，含\"引号\"", questions.get(0).getContent());
+        assertEquals(Arrays.asList("A. 1", "B. 2, 3"), questions.get(0).getOptions());
+        assertEquals(2L, questions.get(1).getId());
+        assertNull(questions.get(1).getOptions());
+    }
+
+    @Test
+    void csvHeaderWithBomAndColumnsInAnyOrder() throws IOException {
+        String csv = "\uFEFFId,Answer,Content,Score\n7,B,题目,5\n";
+        List<Question> questions = new ArrayList<>();
+
+        assertEquals(1, loader.loadCsv(reader(csv), "bom.csv", questions::add));
+        assertEquals(7L, questions.get(0).getId());
+        assertEquals("B", questions.get(0).getAnswer());
+        assertEquals(5, questions.get(0).getScore());
+    }
+
+    @Test
+    void csvSkipsMalformedLinesAndMissingIds() throws IOException {
+        String csv = "id,content,difficulty\n"
+                + "1,正常,2\n"
+                + "abc,ID不是数字,2\n"
+                + "2,难度不是数字,hard\n"
+                + ",缺少ID,3\n"
+                + "\n"
+                + "3,正常,4\n";
+        List<Question> questions = new ArrayList<>();
+
+        assertEquals(2, loader.loadCsv(reader(csv), "bad.csv", questions::add));
+        assertEquals(1L, questions.get(0).getId());
+        assertEquals(3L, questions.get(1).getId());
+        assertEquals(4, questions.get(1).getDifficulty());
+    }
+
+    @Test
+    void jsonLinesSkipMalformedLinesAndMissingIds() throws IOException {
+        String jsonl = "\uFEFF{\"id\":1,\"content\":\"第一题\"}\n"
+                + "{\"id\":2,\"content\":\n"
+                + "\n"
+                + "{\"content\":\"缺少ID\"}\n"
+                + "{\"id\":3,\"content\":\"第三题\"}\n";
+        List<Question> questions = new ArrayList<>();
+
+        assertEquals(2, loader.loadJsonLines(reader(jsonl), "test.jsonl", questions::add));
+        assertEquals(1L, questions.get(0).getId());
+        assertEquals("第三题", questions.get(1).getContent());
+    }
+
+    private static BufferedReader reader(String content) {
+        return new BufferedReader(new StringReader(content));
+    }
+}
@@ -0,0 +1,124 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.Question;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuestionIndexTest {
+
+    private static final String[] TYPES = {"choice", "multiple", "judge", "blank"};
+
+    private final Random random = new Random(2024);
+    private final QuestionIndex index = new QuestionIndex();
+    // 暴力对照：题目ID -> 题目
+    private final Map<Long, Question> questions = new HashMap<>();
+
+    @Test
+    void filteredSamplingMatchesBruteForce() {
+        // 超过初始容量，且反复交换删除和改属性重建
+        for (long id = 1; id <= 600; id++) {
+            put(id);
+        }
+        List<Long> ids = new ArrayList<>(questions.keySet());
+        for (int i = 0; i < 200; i++) {
+            long id = ids.get(random.nextInt(ids.size()));
+            assertEquals(questions.remove(id) != null, index.remove(id));
+        }
+        for (int i = 0; i < 100; i++) {
+            put(1 + random.nextInt(700));
+        }
+        assertEquals(questions.size(), index.size());
+
+        for (int round = 0; round < 300; round++) {
+            QuestionIndex.Filter filter = randomFilter();
+            Set<Long> expected = bruteForce(filter);
+
+            // k足够大时抽出的就是全部候选
+            assertEquals(expected, toSet(index.sample(filter, questions.size() + 1)));
+
+            long[] sampled = index.sample(filter, 5);
+            assertEquals(Math.min(5, expected.size()), sampled.length);
+            assertEquals(sampled.length, toSet(sampled).size(), "抽取结果有重复");
+            assertTrue(expected.containsAll(toSet(sampled)));
+        }
+    }
+
+    @Test
+    void unfilteredSamplingCoversWholeBank() {
+        for (long id = 1; id <= 100; id++) {
+            put(id);
+        }
+        index.remove(50);
+        questions.remove(50L);
+
+        assertEquals(questions.keySet(), toSet(index.sample(1000)));
+        assertEquals(questions.keySet(), toSet(index.sample(new QuestionIndex.Filter(null, null, null, null, null),
+                1000)));
+        assertEquals(10, toSet(index.sample(10)).size());
+        for (int i = 0; i < 200; i++) {
+            assertTrue(questions.containsKey(index.random()));
+        }
+    }
+
+    @Test
+    void emptyIndexAndUnknownTypeReturnNothing() {
+        assertEquals(-1, index.random());
+        assertEquals(0, index.sample(3).length);
+
+        put(1);
+        assertEquals(0, index.sample(new QuestionIndex.Filter(null, null, "essay", null, null), 3).length);
+        assertEquals(0, index.sample(new QuestionIndex.Filter(9, 9, null, null, null), 3).length);
+    }
+
+    private void put(long id) {
+        Question question = new Question();
+        question.setId(id);
+        question.setType(TYPES[random.nextInt(TYPES.length)]);
+        question.setDifficulty(1 + random.nextInt(5));
+        question.setScore((1 + random.nextInt(4)) * 5);
+        questions.put(id, question);
+        index.add(question);
+    }
+
+    private QuestionIndex.Filter randomFilter() {
+        Integer minDifficulty = random.nextBoolean() ? 1 + random.nextInt(5) : null;
+        Integer maxDifficulty = random.nextBoolean() ? 1 + random.nextInt(5) : null;
+        String type = random.nextInt(3) == 0 ? TYPES[random.nextInt(TYPES.length)] : null;
+        Integer minScore = random.nextInt(3) == 0 ? random.nextInt(25) : null;
+        Integer maxScore = random.nextInt(3) == 0 ? random.nextInt(25) : null;
+        return new QuestionIndex.Filter(minDifficulty, maxDifficulty, type, minScore, maxScore);
+    }
+
+    private Set<Long> bruteForce(QuestionIndex.Filter filter) {
+        Set<Long> result = new HashSet<>();
+        for (Question question : questions.values()) {
+            if (within(question.getDifficulty(), filter.minDifficulty, filter.maxDifficulty)
+                    && within(question.getScore(), filter.minScore, filter.maxScore)
+                    && (filter.type == null || filter.type.equals(question.getType()))) {
+                result.add(question.getId());
+            }
+        }
+        return result;
+    }
+
+    private static boolean within(int value, Integer min, Integer max) {
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    private static Set<Long> toSet(long[] ids) {
+        Set<Long> result = new HashSet<>();
+        Arrays.stream(ids).forEach(result::add);
+        return result;
+    }
+}
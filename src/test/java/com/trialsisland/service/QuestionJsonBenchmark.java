@@ -0,0 +1,74 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.common.Result;
+import com.trialsisland.config.QuestionBankProperties;
+import com.trialsisland.config.QuestionStatsProperties;
+import com.trialsisland.dto.QuestionResponse;
+import com.trialsisland.entity.Question;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * 输出单个题目：每次请求转换为QuestionResponse再序列化 vs 直接输出预序列化的字节
+ * 两边都序列化完整的Result外壳，与接口实际输出一致
+ */
+@Tag("benchmark")
+class QuestionJsonBenchmark {
+
+    private static final int OPS = 2_000_000;
+    private static final long QUESTION_ID = 1L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void convertAndSerializeVersusCachedBytes() {
+        QuestionBankProperties bankProperties = new QuestionBankProperties();
+        bankProperties.setDir(dir.resolve("questions").toString());
+        bankProperties.setWatch(false);
+        ObjectMapper objectMapper = new ObjectMapper();
+        QuestionService questionService = new QuestionService(objectMapper, bankProperties,
+                new QuestionStatsProperties());
+        questionService.reloadBank();
+
+        IntConsumer convert = i -> write(objectMapper,
+                Result.success(convert(questionService.getQuestionEntity(QUESTION_ID))));
+        IntConsumer cached = i -> write(objectMapper, Result.success(questionService.getQuestionJson(QUESTION_ID)));
+        assertArrayEquals(write(objectMapper, Result.success(convert(questionService.getQuestionEntity(QUESTION_ID)))),
+                write(objectMapper, Result.success(questionService.getQuestionJson(QUESTION_ID))));
+
+        double convertNanos = Benchmarks.nanosPerOp(2, 5, OPS, convert);
+        long convertBytes = Benchmarks.allocatedPerOp(OPS, convert);
+        double cachedNanos = Benchmarks.nanosPerOp(2, 5, OPS, cached);
+        long cachedBytes = Benchmarks.allocatedPerOp(OPS, cached);
+        Benchmarks.report("question json: convert + serialize %.0f ns/op %d B/op, cached bytes %.0f ns/op %d B/op",
+                convertNanos, convertBytes, cachedNanos, cachedBytes);
+    }
+
+    /**
+     * 原来每次请求做的转换：复制选项列表，去掉答案
+     */
+    private static QuestionResponse convert(Question question) {
+        return new QuestionResponse(question.getId(), question.getContent(), question.getImageUrl(),
+                question.getOptions() != null ? new ArrayList<>(question.getOptions()) : null,
+                question.getType(), question.getScore());
+    }
+
+    private static byte[] write(ObjectMapper objectMapper, Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.trialsisland.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trialsisland.config.QuestionBankProperties;
+import com.trialsisland.config.QuestionStatsProperties;
+import com.trialsisland.dto.AnswerHistoryPage;
+import com.trialsisland.dto.SubmitAnswerRequest;
+import com.trialsisland.entity.Question;
+import com.trialsisland.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QuestionServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private QuestionService questionService;
+
+    @BeforeEach
+    void setUp() {
+        QuestionBankProperties bankProperties = new QuestionBankProperties();
+        bankProperties.setDir(dir.resolve("questions").toString());
+        bankProperties.setWatch(false);
+        questionService = new QuestionService(new ObjectMapper(), bankProperties, new QuestionStatsProperties());
+        questionService.reloadBank();
+    }
+
+    @Test
+    void reloadSwapsBankOnlyWhenAllFilesLoad() throws IOException {
+        Path bankDir = Files.createDirectories(dir.resolve("questions"));
+        write(bankDir.resolve("a.jsonl"), "{\"id\":1,\"content\":\"第一版\"}\n");
+        questionService.reloadBank();
+        assertEquals("第一版", questionService.getQuestionEntity(1L).getContent());
+        long version = questionService.getBankVersion();
+
+        // 无法按UTF-8读取的文件导致加载失败，保留当前题库
+        Files.write(bankDir.resolve("b.jsonl"), new byte[]{'{', (byte) 0xC3, 0x28, '}'});
+        questionService.reloadBank();
+        assertEquals("第一版", questionService.getQuestionEntity(1L).getContent());
+        assertEquals(version, questionService.getBankVersion());
+
+        write(bankDir.resolve("b.jsonl"), "{\"id\":2,\"content\":\"新题\"}\n");
+        write(bankDir.resolve("a.jsonl"), "{\"id\":1,\"content\":\"第二版\"}\n");
+        questionService.reloadBank();
+        assertEquals("第二版", questionService.getQuestionEntity(1L).getContent());
+        assertEquals("新题", questionService.getQuestionEntity(2L).getContent());
+        assertEquals(version + 1, questionService.getBankVersion());
+    }
+
+    @Test
+    void duplicateIdsResolveToLastFileInNameOrder() throws IOException {
+        Path bankDir = Files.createDirectories(dir.resolve("questions"));
+        write(bankDir.resolve("2-override.csv"), "id,content\n1,来自CSV\n");
+        write(bankDir.resolve("1-base.jsonl"), "{\"id\":1,\"content\":\"来自JSONL\"}\n"
+                + "{\"id\":2,\"content\":\"同一文件第一次\"}\n{\"id\":2,\"content\":\"同一文件第二次\"}\n");
+
+        // 并行解析，多次加载结果相同
+        for (int round = 0; round < 20; round++) {
+            questionService.reloadBank();
+            assertEquals("来自CSV", questionService.getQuestionEntity(1L).getContent());
+            assertEquals("同一文件第二次", questionService.getQuestionEntity(2L).getContent());
+        }
+        assertThrows(BusinessException.class, () -> questionService.getQuestionEntity(3L));
+    }
+
+    @Test
+    void pagesAnswerHistoryAcrossChunksAndBatches() {
+        questionService.saveQuestion(question(9001L, 3));
+        // 300条单独提交，跨越AnswerLog的第一个分块（256条）
+        for (int i = 0; i < 300; i++) {
+            questionService.submitAnswer(7L, answer(9001L, i % 2 == 0 ? "A" : "B"));
+        }
+        List<SubmitAnswerRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(answer(9001L, "A"));
+        }
+        questionService.submitAnswers(7L, batch);
+
+        List<Long> ids = new ArrayList<>();
+        Integer cursor = null;
+        int pages = 0;
+        do {
+            AnswerHistoryPage page = questionService.getUserAnswerHistory(7L, cursor, 100);
+            assertEquals(320, page.getTotal());
+            if (pages == 0) {
+                // 批量提交的20条一起出现在最前面
+                for (int i = 0; i < 20; i++) {
+                    assertEquals(Boolean.TRUE, page.getItems().get(i).getIsCorrect());
+                }
+            }
+            page.getItems().forEach(item -> ids.add(item.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(4, pages);
+        assertEquals(320, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertEquals(ids.get(i - 1) - 1, ids.get(i));
+        }
+        // 最后一页之后没有游标
+        AnswerHistoryPage last = questionService.getUserAnswerHistory(7L, 20, 100);
+        assertEquals(20, last.getItems().size());
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void storesNormalizedAnswer() {
+        questionService.saveQuestion(question(9001L, 3));
+        questionService.submitAnswer(7L, answer(9001L, "  a "));
+
+        AnswerHistoryPage page = questionService.getUserAnswerHistory(7L, null, 10);
+        assertEquals("A", page.getItems().get(0).getUserAnswer());
+        assertEquals(Boolean.TRUE, page.getItems().get(0).getIsCorrect());
+    }
+
+    @Test
+    void recalibratesFromRatingsInOneBankUpdate() {
+        questionService.saveQuestion(question(9001L, 5));
+        questionService.saveQuestion(question(9002L, 1));
+        // 30位新用户全部答对难度5的题、全部答错难度1的题：
+        // 按原始正确率会变成1级和5级，按Elo难度分只各移动一级
+        for (long userId = 1; userId <= 30; userId++) {
+            questionService.recordAttempt(userId, 9001L, true, null);
+            questionService.recordAttempt(userId, 9002L, false, null);
+        }
+        long version = questionService.getBankVersion();
+
+        questionService.recalibrateDifficulty();
+
+        assertEquals(4, questionService.getQuestionEntity(9001L).getDifficulty());
+        assertEquals(2, questionService.getQuestionEntity(9002L).getDifficulty());
+        assertEquals(version + 1, questionService.getBankVersion());
+
+        // 评分没有变化时不再更新题库
+        questionService.recalibrateDifficulty();
+        assertEquals(version + 1, questionService.getBankVersion());
+    }
+
+    private static SubmitAnswerRequest answer(Long questionId, String answer) {
+        SubmitAnswerRequest request = new SubmitAnswerRequest();
+        request.setQuestionId(questionId);
+        request.setAnswer(answer);
+        return request;
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Question question(Long id, int difficulty) {
+        Question question = new Question();
+        question.setId(id);
+        question.setContent("校准测试题 " + id);
+        question.setType("choice");
+        question.setOptions(Arrays.asList("A. 1", "B. 2", "C. 3", "D. 4"));
+        question.setAnswer("A");
+        question.setDifficulty(difficulty);
+        question.setScore(10);
+        return question;
+    }
+}
@@ -0,0 +1,119 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewQueueTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+
+    @Test
+    void pollsDueQuestionsInDueOrder() {
+        ReviewQueue queue = new ReviewQueue();
+        Random random = new Random(11);
+        // 对照：题目ID -> 到期时间
+        Map<Long, Long> dueTimes = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            long questionId = random.nextInt(300);
+            if (random.nextInt(5) == 0) {
+                queue.remove(questionId);
+                dueTimes.remove(questionId);
+            } else {
+                long now = random.nextInt(1_000_000) * 1000L;
+                queue.record(questionId, false, now);
+                dueTimes.put(questionId, now + 10 * MINUTE);
+            }
+        }
+        assertEquals(dueTimes.size(), queue.size());
+
+        List<Long> expected = new ArrayList<>(dueTimes.keySet());
+        expected.sort(Comparator.comparing(dueTimes::get));
+        assertEquals(dueTimes.get(expected.get(0)), queue.nextDueTime());
+
+        long[] polled = queue.pollDue(Long.MAX_VALUE / 2, Integer.MAX_VALUE);
+        assertEquals(expected.size(), polled.length);
+        for (int i = 0; i < polled.length; i++) {
+            assertEquals(dueTimes.get(expected.get(i)), dueTimes.get(polled[i]), "第" + i + "个到期时间不对");
+        }
+    }
+
+    @Test
+    void onlyDueQuestionsArePolledAndThenLeased() {
+        ReviewQueue queue = new ReviewQueue();
+        queue.record(1L, false, 0);
+        queue.record(2L, false, 5 * MINUTE);
+
+        assertEquals(0, queue.pollDue(10 * MINUTE - 1, 10).length);
+        assertArrayEquals(new long[]{1L}, queue.pollDue(10 * MINUTE, 10));
+        // 取出后顺延10分钟，未作答前不会再次取出
+        assertArrayEquals(new long[]{2L}, queue.pollDue(15 * MINUTE, 10));
+        assertEquals(0, queue.pollDue(19 * MINUTE, 10).length);
+        assertArrayEquals(new long[]{1L, 2L}, queue.pollDue(25 * MINUTE, 10));
+        assertEquals(1, queue.pollDue(60 * MINUTE, 1).length);
+    }
+
+    @Test
+    void correctAnswersStretchIntervalsUntilGraduation() {
+        ReviewQueue queue = new ReviewQueue();
+        // 不在队列中的题目答对不入队
+        queue.record(1L, true, 0);
+        assertEquals(0, queue.size());
+
+        long now = 0;
+        queue.record(1L, false, now);
+        assertEquals(now + 10 * MINUTE, queue.nextDueTime());
+        // 间隔：1天、6天、15天、37.5天，下一次135天超过60天即掌握
+        long[] intervals = {DAY, 6 * DAY, 15 * DAY, 37 * DAY + DAY / 2};
+        for (long interval : intervals) {
+            queue.record(1L, true, now);
+            assertEquals(now + interval, queue.nextDueTime());
+            now += interval;
+        }
+        queue.record(1L, true, now);
+        assertEquals(0, queue.size());
+        assertEquals(-1, queue.nextDueTime());
+    }
+
+    @Test
+    void wrongAnswerRestartsAndLowersEase() {
+        ReviewQueue queue = new ReviewQueue();
+        queue.record(1L, false, 0);
+        queue.record(1L, true, 0);
+        queue.record(1L, false, 0);
+        assertEquals(10 * MINUTE, queue.nextDueTime());
+
+        // 易度因子降为2.18：1天、6天，之后6天 × 2.18
+        queue.record(1L, true, 0);
+        queue.record(1L, true, 0);
+        queue.record(1L, true, 0);
+        assertEquals(6 * 24 * 60 * 218 / 100 * MINUTE, queue.nextDueTime());
+    }
+
+    @Test
+    void fullQueueEvictsLatestDue() {
+        ReviewQueue queue = new ReviewQueue();
+        for (long questionId = 1; questionId <= ReviewQueue.MAX_ITEMS; questionId++) {
+            queue.record(questionId, false, questionId * MINUTE);
+        }
+        // 新题目入队时淘汰最晚到期的题目（最后加入的那道）
+        queue.record(10_000L, false, 0);
+        assertEquals(ReviewQueue.MAX_ITEMS, queue.size());
+
+        long[] polled = queue.pollDue(Long.MAX_VALUE / 2, Integer.MAX_VALUE);
+        assertEquals(ReviewQueue.MAX_ITEMS, polled.length);
+        assertEquals(10_000L, polled[0]);
+        for (int i = 1; i < polled.length; i++) {
+            assertEquals(i, polled[i]);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.trialsisland.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+    // 允许的延迟：一个刻度加上测试机调度抖动
+    private static final long SLACK_MILLIS = 250;
+
+    // 4个槽位，一圈40ms，较晚的任务需要转多圈
+    private final TimingWheel wheel = new TimingWheel(TICK_MILLIS, 4, Runnable::run);
+
+    @AfterEach
+    void stop() {
+        wheel.stop();
+    }
+
+    @Test
+    void firesAtOrAfterDeadlineAcrossRounds() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        long[] delays = {0, 5, 15, 39, 40, 41, 95, 160, 333};
+        Map<Long, Long> firedAt = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(delays.length);
+        for (long delay : delays) {
+            long deadline = now + delay;
+            wheel.schedule(deadline, () -> {
+                firedAt.put(deadline, System.currentTimeMillis());
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (long delay : delays) {
+            long deadline = now + delay;
+            long fired = firedAt.get(deadline);
+            assertTrue(fired >= deadline, "提前触发: delay=" + delay + ", early=" + (deadline - fired));
+            assertTrue(fired < deadline + SLACK_MILLIS, "触发过晚: delay=" + delay + ", late=" + (fired - deadline));
+        }
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(System.currentTimeMillis() - 60_000, done::countDown);
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CountDownLatch later = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.schedule(now + 50, cancelled::countDown);
+        wheel.schedule(now + 150, later::countDown);
+        timeout.cancel();
+
+        assertTrue(later.await(5, TimeUnit.SECONDS));
+        assertFalse(cancelled.await(0, TimeUnit.MILLISECONDS));
+        assertEquals(1, cancelled.getCount());
+    }
+}
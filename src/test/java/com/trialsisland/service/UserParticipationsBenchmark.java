@@ -0,0 +1,80 @@
+package com.trialsisland.service;
+
+import com.trialsisland.entity.ContestParticipation;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 查询用户全部参赛记录：按用户索引 vs 扫描全部参赛记录再过滤
+ * 扫描的做法用一份全部参赛记录的列表模拟原来遍历userContestMap.values()
+ * 参赛记录总数取1万、10万、100万三档，索引查询的耗时应与总数无关，扫描随总数线性增长
+ */
+@Tag("benchmark")
+class UserParticipationsBenchmark {
+
+    private static final int CONTESTS = 20;
+    // 每档的用户数，参赛记录总数 = 用户数 * CONTESTS
+    private static final int[] USERS = {500, 5_000, 50_000};
+
+    @TempDir
+    Path dir;
+
+    @BeforeAll
+    static void quiet() {
+        Benchmarks.quietLogs();
+    }
+
+    @Test
+    void indexVersusScan() {
+        for (int users : USERS) {
+            measure(users);
+        }
+    }
+
+    private void measure(int users) {
+        ContestService service = Benchmarks.contestService(dir.resolve("questions"), null, users,
+                CONTESTS * 100);
+        try {
+            List<ContestParticipation> all = new ArrayList<>(users * CONTESTS);
+            for (int c = 0; c < CONTESTS; c++) {
+                Long contestId = service.createContest("基准测试" + c, "", Arrays.asList(1L, 2L, 3L), 30, users)
+                        .getId();
+                for (long userId = 1; userId <= users; userId++) {
+                    all.add(service.joinContest(contestId, userId, "user" + userId));
+                }
+            }
+            assertEquals(CONTESTS, service.getUserAllParticipations(1L).size());
+
+            // 扫描的次数随总数减少，每档的计时量级相近
+            int scans = Math.max(20, 2_000_000 / all.size());
+            double indexed = Benchmarks.nanosPerOp(3, 5, 20_000,
+                    i -> service.getUserAllParticipations(1L + i % users));
+            double scanned = Benchmarks.nanosPerOp(1, 3, scans, i -> scan(all, 1L + i % users));
+            Benchmarks.report("user participations, %d rows (%d users x %d contests): index %.0f ns/op, scan %.0f ns/op",
+                    all.size(), users, CONTESTS, indexed, scanned);
+        } finally {
+            service.shutdownLifecycle();
+        }
+    }
+
+    private static List<ContestParticipation> scan(List<ContestParticipation> all, long userId) {
+        List<ContestParticipation> result = new ArrayList<>();
+        for (ContestParticipation participation : all) {
+            if (participation.getUserId() == userId) {
+                result.add(participation);
+            }
+        }
+        result.sort(Comparator.comparing(ContestParticipation::getRegistrationTime).reversed());
+        return result;
+    }
+}